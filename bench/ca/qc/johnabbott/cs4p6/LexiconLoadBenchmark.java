@@ -0,0 +1,35 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to load {@link Alphabets#LEXICON_FULL} into each lexicon implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LexiconLoadBenchmark {
+
+    @Param({ Lexicons.TRIE, Lexicons.ARRAY_TRIE, Lexicons.BIT_PARALLEL, Lexicons.DAWG, LexiconState.FROZEN_TRIE })
+    public String lexicon;
+
+    @Benchmark
+    public Lexicon load() throws IOException {
+        return LexiconState.load(lexicon);
+    }
+}
@@ -0,0 +1,118 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lexicon contains() and wordle() queries for each implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexiconQueryBenchmark {
+
+    /**
+     * Representative wordle constraints, from a fresh game to the end of a game.
+     */
+    @State(Scope.Benchmark)
+    public static class Query {
+
+        @Param({ "first-guess", "after-crane", "sample", "long-word" })
+        public String query;
+
+        int length;
+        Set<Character> greys;
+        Map<Integer, Character> greens;
+        List<Character> yellows;
+
+        @Setup
+        public void setup() {
+            switch (query) {
+                case "first-guess":
+                    set(5, Set.of(), Map.of(), List.of());
+                    break;
+                case "after-crane":
+                    set(5, Set.of('c', 'r', 'n'), Map.of(), List.of('a', 'e'));
+                    break;
+                // the constraints of WordleSample
+                case "sample":
+                    set(5, Set.of('c', 'a', 'd', 'e', 't', 'b', 'u', 'o'), Map.of(0, 's', 2, 'o'), List.of('n'));
+                    break;
+                case "long-word":
+                    set(9, Set.of('e'), Map.of(0, 's'), List.of('i'));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown query \"" + query + "\".");
+            }
+        }
+
+        private void set(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows) {
+            this.length = length;
+            this.greys = greys;
+            this.greens = greens;
+            this.yellows = yellows;
+        }
+    }
+
+    /**
+     * The next word to query, each thread going through the words in turn on its own.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    // words queried per invocation, taken in turn from the loaded word list whatever its size
+    private static final int BATCH = 4096;
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void containsHit(LexiconState state, Cursor cursor, Blackhole blackhole) {
+        contains(state.loaded, state.hits, cursor, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void containsMiss(LexiconState state, Cursor cursor, Blackhole blackhole) {
+        contains(state.loaded, state.misses, cursor, blackhole);
+    }
+
+    // query the next BATCH words, wrapping around the list.
+    private static void contains(Lexicon lexicon, String[] words, Cursor cursor, Blackhole blackhole) {
+        int next = cursor.next;
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(lexicon.contains(words[next]));
+            if (++next == words.length)
+                next = 0;
+        }
+        cursor.next = next;
+    }
+
+    @Benchmark
+    public List<String> wordle(LexiconState state, Query query) {
+        return state.loaded.wordle(query.length, query.greys, query.greens, query.yellows);
+    }
+
+    @Benchmark
+    public void wordleVisit(LexiconState state, Query query, Blackhole blackhole) {
+        state.loaded.wordle(query.length, query.greys, query.greens, query.yellows, blackhole::consume);
+    }
+}
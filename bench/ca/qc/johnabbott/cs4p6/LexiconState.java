@@ -0,0 +1,60 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The full lexicon loaded into the implementation under test, shared by all benchmark threads.
+ */
+@State(Scope.Benchmark)
+public class LexiconState {
+
+    public static final String FROZEN_TRIE = "frozen-trie";
+
+    @Param({ Lexicons.TRIE, Lexicons.ARRAY_TRIE, Lexicons.BIT_PARALLEL, Lexicons.DAWG, FROZEN_TRIE,
+            Lexicons.METERED + Lexicons.TRIE, Lexicons.METERED + Lexicons.DAWG })
+    public String lexicon;
+
+    Lexicon loaded;
+    String[] hits;
+    String[] misses;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        loaded = load(lexicon);
+
+        List<String> words = new ArrayList<>();
+        LexiconLoader.forEachWord(words::add, Alphabets.LEXICON_FULL);
+        hits = words.toArray(new String[0]);
+
+        // every word with its last letter replaced is not a word
+        misses = new String[hits.length];
+        for (int i = 0; i < hits.length; i++)
+            misses[i] = hits[i].substring(0, hits[i].length() - 1) + '#';
+    }
+
+    /**
+     * Load the full lexicon into an implementation.
+     * @param name a {@link Lexicons} name, or {@link #FROZEN_TRIE}.
+     * @return the lexicon.
+     * @throws IOException if the lexicon cannot be read.
+     */
+    static Lexicon load(String name) throws IOException {
+        if (name.equals(FROZEN_TRIE)) {
+            Trie trie = new Trie();
+            LexiconLoader.load(trie, Alphabets.LEXICON_FULL);
+            return trie.freeze();
+        }
+
+        Lexicon lexicon = Lexicons.create(name);
+        LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+        return lexicon;
+    }
+}
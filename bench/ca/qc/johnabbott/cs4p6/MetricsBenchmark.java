@@ -0,0 +1,207 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The cost of {@link Metrics} on the instrumented paths of a trie: each benchmark runs in a JVM with metrics off,
+ * and again as its "Metrics" twin in a JVM with them on. With metrics off, the results should match
+ * {@link LexiconQueryBenchmark} and {@link WordleGuessBenchmark} for the trie.
+ *
+ * The "Baseline" benchmarks run the contains() and wordle() walks of the trie copied without any instrumentation,
+ * on the same nodes, so metrics off can be compared with code that never had probes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark {
+
+    private static final String ENABLED = "-D" + Metrics.PROPERTY + "=true";
+
+    private Trie trie;
+    private Baseline baseline;
+    private String[] words;
+    private Constraint constraint;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        trie = new Trie();
+        LexiconLoader.load(trie, Alphabets.LEXICON_FULL);
+        words = trie.wordle(5, Set.of(), Map.of(), List.of()).toArray(new String[0]);
+        baseline = new Baseline();
+        LexiconLoader.forEachWord(baseline::add, Alphabets.LEXICON_FULL);
+
+        // the constraint of WordleSample after its two guesses
+        constraint = new Constraint(5).with("crane", Wordle.score("crane", "snout"))
+                .with("sloth", Wordle.score("sloth", "snout"));
+    }
+
+    // walk through the words so the branches are not all predicted
+    private int next() {
+        next = (next + 1) % (words.length * 7);
+        return next;
+    }
+
+    private void queryWordle(Lexicon lexicon, Blackhole blackhole) {
+        lexicon.wordle(5, Set.of('c', 'a', 'd', 'e', 't', 'b', 'u', 'o'), Map.of(0, 's', 2, 'o'), List.of('n'),
+                blackhole::consume);
+    }
+
+    private Wordle.Result playGuess() {
+        int pair = next();
+        Wordle wordle = new Wordle(words[pair % words.length]);
+        wordle.setLexicon(trie);
+        return wordle.guess(words[(pair * 31) % words.length]);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void wordleBaseline(Blackhole blackhole) {
+        queryWordle(baseline, blackhole);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void wordle(Blackhole blackhole) {
+        queryWordle(trie, blackhole);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ENABLED)
+    public void wordleMetrics(Blackhole blackhole) {
+        queryWordle(trie, blackhole);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void wordleConstraint(Blackhole blackhole) {
+        trie.wordle(constraint, blackhole::consume);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ENABLED)
+    public void wordleConstraintMetrics(Blackhole blackhole) {
+        trie.wordle(constraint, blackhole::consume);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public boolean containsBaseline() {
+        return baseline.contains(words[next() % words.length]);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public boolean contains() {
+        return trie.contains(words[next() % words.length]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ENABLED)
+    public boolean containsMetrics() {
+        return trie.contains(words[next() % words.length]);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public Wordle.Result guess() {
+        return playGuess();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = ENABLED)
+    public Wordle.Result guessMetrics() {
+        return playGuess();
+    }
+
+    /**
+     * The trie walks of contains() and wordle() as they are without the probes, over the same nodes.
+     */
+    private static class Baseline implements Lexicon {
+        private final Node<Character> root = new Node<>(' ');
+
+        @Override
+        public void add(String word) {
+            Node<Character> current = root;
+            for (int i = 0; i < word.length(); i++) {
+                if (!current.getChildren().containsKey(word.charAt(i)))
+                    current.addChild(word.charAt(i));
+                current = current.getChildren().get(word.charAt(i));
+            }
+            current.setWord(true);
+        }
+
+        @Override
+        public boolean contains(String word) {
+            return contains(root, word, 0);
+        }
+
+        private boolean contains(Node<Character> current, String word, int place) {
+            if (word.length() == place)
+                return current.isWord();
+            if (current.getChildren().containsKey(word.charAt(place)))
+                return contains(current.getChildren().get(word.charAt(place)), word, place + 1);
+            else
+                return false;
+        }
+
+        @Override
+        public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+                List<Character> yellows) {
+            List<String> words = new ArrayList<>();
+            wordle(length, greys, greens, yellows, words::add);
+            return words;
+        }
+
+        @Override
+        public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+                List<Character> yellows, Consumer<String> action) {
+            WordleQuery query = new WordleQuery(length, greys, greens, yellows);
+            getWords(root, new char[Math.max(length, 0)], 0, 0, action, query);
+        }
+
+        private void getWords(Node<Character> node, char[] word, int depth, int found, Consumer<String> action,
+                WordleQuery query) {
+            if (depth == word.length) {
+                if (node.isWord()) {
+                    String candidate = new String(word);
+                    if (query.accepts(found, candidate))
+                        action.accept(candidate);
+                }
+                return;
+            }
+
+            for (Node<Character> child : node.getChildren().values()) {
+                char letter = child.getElement();
+                if (!query.allows(depth, letter))
+                    continue;
+
+                int childFound = query.find(found, letter);
+                if (query.canFinish(depth + 1, childFound)) {
+                    word[depth] = letter;
+                    getWords(child, word, depth + 1, childFound, action, query);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scoring guesses: a full interactive Wordle.guess() and the batch Wordle.score().
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordleGuessBenchmark {
+
+    private Lexicon lexicon;
+    private String[] words;
+    private int[] counts;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        lexicon = new Trie();
+        LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+        words = lexicon.wordle(5, Set.of(), Map.of(), List.of()).toArray(new String[0]);
+        counts = new int[Alphabets.FULL_ALPHABET.length];
+    }
+
+    // walk through (guess, answer) pairs so the branches are not all predicted
+    private int next() {
+        next = (next + 1) % (words.length * 7);
+        return next;
+    }
+
+    @Benchmark
+    public Wordle.Result guess() {
+        int pair = next();
+        Wordle wordle = new Wordle(words[pair % words.length]);
+        wordle.setLexicon(lexicon);
+        return wordle.guess(words[(pair * 31) % words.length]);
+    }
+
+    @Benchmark
+    public int score() {
+        int pair = next();
+        return Wordle.score(words[(pair * 31) % words.length], words[pair % words.length], counts);
+    }
+}
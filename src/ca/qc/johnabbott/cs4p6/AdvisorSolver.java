@@ -0,0 +1,60 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.BitSet;
+import java.util.function.Supplier;
+
+/**
+ * Solver that plays the guess with the most expected information, see {@link GuessAdvisor}, and narrows its
+ * candidates with exact patterns from a {@link FeedbackMatrix}.
+ */
+public class AdvisorSolver implements Solver {
+
+    private final FeedbackMatrix matrix;
+    private final GuessAdvisor advisor;
+    private final String opener;
+    private final BitSet candidates;
+    private boolean first = true;
+
+    private AdvisorSolver(FeedbackMatrix matrix, GuessAdvisor advisor, String opener) {
+        this.matrix = matrix;
+        this.advisor = advisor;
+        this.opener = opener;
+        this.candidates = new BitSet(matrix.size());
+        candidates.set(0, matrix.size());
+    }
+
+    /**
+     * Create solvers sharing a matrix. The opening guess is the same for every game, so it is ranked once here.
+     * @param matrix the patterns of the words.
+     * @return a supplier of solvers, one per game.
+     */
+    public static Supplier<Solver> factory(FeedbackMatrix matrix) {
+        GuessAdvisor advisor = new GuessAdvisor(matrix);
+        BitSet all = new BitSet(matrix.size());
+        all.set(0, matrix.size());
+        String opener = advisor.rankUntil(all, 1, GuessAdvisor.NO_DEADLINE).get(0).getWord();
+        return () -> new AdvisorSolver(matrix, advisor, opener);
+    }
+
+    @Override
+    public String nextGuess() {
+        if (first)
+            return opener;
+        if (candidates.isEmpty())
+            throw new IllegalStateException("The answer is not one of the words of the matrix.");
+
+        // with two candidates left, guessing one of them is as good as anything
+        if (candidates.cardinality() <= 2)
+            return matrix.getWord(candidates.nextSetBit(0));
+
+        return advisor.rankUntil(candidates, 1, GuessAdvisor.NO_DEADLINE).get(0).getWord();
+    }
+
+    @Override
+    public void update(String guess, Wordle.Result result) {
+        first = false;
+        int id = matrix.indexOf(guess);
+        if (result.getPattern() >= 0 && id >= 0)
+            matrix.narrow(candidates, id, result.getPattern());
+    }
+}
@@ -0,0 +1,182 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Trie specialized for a bounded alphabet. Each node stores its children in a compact array indexed through a
+ * bitmap of the letters present, so no maps, entries or boxed characters are needed.
+ */
+public class ArrayTrie implements Lexicon {
+
+    // a long bitmap can index at most 64 letters
+    private static final int MAX_ALPHABET = Long.SIZE;
+
+    private final char[] alphabet;
+    private final int[] letters;
+    private final ArrayNode root;
+
+    /**
+     * Create a trie over the full lowercase alphabet.
+     */
+    public ArrayTrie() {
+        this(Alphabets.FULL_ALPHABET);
+    }
+
+    /**
+     * Create a trie over an alphabet.
+     * @param alphabet the characters that can appear in words.
+     */
+    public ArrayTrie(char[] alphabet) {
+        if (alphabet.length > MAX_ALPHABET)
+            throw new IllegalArgumentException("Alphabet can have at most " + MAX_ALPHABET + " letters.");
+
+        this.alphabet = alphabet.clone();
+
+        // map each character to its index in the alphabet, -1 if not in the alphabet
+        char max = 0;
+        for (char c : alphabet)
+            max = (char) Math.max(max, c);
+        this.letters = new int[max + 1];
+        Arrays.fill(letters, -1);
+        for (int i = 0; i < alphabet.length; i++)
+            letters[alphabet[i]] = i;
+
+        this.root = new ArrayNode();
+    }
+
+    // index of a character in the alphabet, -1 if it is not part of it.
+    private int letter(char c) {
+        return c < letters.length ? letters[c] : -1;
+    }
+
+    @Override
+    public void add(String word) {
+        ArrayNode current = root;
+        for (int i = 0; i < word.length(); i++) {
+            int letter = letter(word.charAt(i));
+            if (letter < 0)
+                throw new IllegalArgumentException("\"" + word + "\" is not in the alphabet.");
+            current = current.addChild(letter);
+        }
+        current.setWord(true);
+    }
+
+    @Override
+    public boolean contains(String word) {
+        ArrayNode current = root;
+        for (int i = 0; i < word.length() && current != null; i++) {
+            int letter = letter(word.charAt(i));
+            if (letter < 0)
+                return false;
+            current = current.getChild(letter);
+        }
+        return current != null && current.isWord();
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+
+        List<String> words = new ArrayList<>();
+        wordle(length, greys, greens, yellows, words::add);
+        return words;
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+
+        WordleQuery query = new WordleQuery(length, greys, greens, yellows);
+        getWords(root, new char[Math.max(length, 0)], 0, 0, action, query);
+    }
+
+    // Walk the trie once, applying every constraint as the branch grows. The branch
+    // is kept in a single buffer, so strings are only created for matching words.
+    private void getWords(ArrayNode node, char[] word, int depth, int found, Consumer<String> action,
+            WordleQuery query) {
+
+        // Base case: the branch is the correct length.
+        if (depth == word.length) {
+            if (node.isWord()) {
+                String candidate = new String(word);
+                if (query.accepts(found, candidate))
+                    action.accept(candidate);
+            }
+            return;
+        }
+
+        // Recursive case: visit the children in alphabet order.
+        ArrayNode[] children = node.getChildren();
+        int child = 0;
+        for (long bits = node.getLetters(); bits != 0; bits &= bits - 1) {
+            char letter = alphabet[Long.numberOfTrailingZeros(bits)];
+            ArrayNode next = children[child++];
+            if (!query.allows(depth, letter))
+                continue;
+
+            int childFound = query.find(found, letter);
+            if (query.canFinish(depth + 1, childFound)) {
+                word[depth] = letter;
+                getWords(next, word, depth + 1, childFound, action, query);
+            }
+        }
+    }
+}
+
+class ArrayNode {
+    private static final ArrayNode[] NO_CHILDREN = new ArrayNode[0];
+
+    // bit i is set if the node has a child for letter i, children are stored in letter order
+    private long letters;
+    private ArrayNode[] children = NO_CHILDREN;
+    private boolean isWord = false;
+
+    public long getLetters() {
+        return letters;
+    }
+
+    public ArrayNode[] getChildren() {
+        return children;
+    }
+
+    // position of the child for a letter in the children array
+    private int slot(int letter) {
+        return Long.bitCount(letters & ((1L << letter) - 1));
+    }
+
+    public ArrayNode getChild(int letter) {
+        if ((letters & (1L << letter)) == 0)
+            return null;
+        return children[slot(letter)];
+    }
+
+    public ArrayNode addChild(int letter) {
+        int slot = slot(letter);
+        if ((letters & (1L << letter)) != 0)
+            return children[slot];
+
+        // grow the compact array by one, keeping letter order
+        ArrayNode child = new ArrayNode();
+        ArrayNode[] grown = new ArrayNode[children.length + 1];
+        System.arraycopy(children, 0, grown, 0, slot);
+        grown[slot] = child;
+        System.arraycopy(children, slot, grown, slot + 1, children.length - slot);
+
+        children = grown;
+        letters |= 1L << letter;
+        return child;
+    }
+
+    public boolean isWord() {
+        return isWord;
+    }
+
+    public void setWord(boolean isWord) {
+        this.isWord = isWord;
+    }
+}
@@ -0,0 +1,206 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Lexicon of lowercase words stored in flat arrays bucketed by word length, for fixed length wordle queries.
+ *
+ * Each word keeps its letter codes and a 26-bit mask of the letters it contains. A wordle query is a linear scan
+ * of one bucket: greys and yellows are checked with a single mask test and greens with byte compares.
+ */
+public class BitParallelLexicon implements Lexicon {
+
+    private Bucket[] buckets = new Bucket[0];
+
+    @Override
+    public void add(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (WordleQuery.letter(word.charAt(i)) < 0)
+                throw new IllegalArgumentException("\"" + word + "\" is not in the alphabet.");
+        }
+
+        if (word.length() >= buckets.length)
+            buckets = Arrays.copyOf(buckets, word.length() + 1);
+        if (buckets[word.length()] == null)
+            buckets[word.length()] = new Bucket(word.length());
+
+        buckets[word.length()].add(word);
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return word.length() < buckets.length && buckets[word.length()] != null
+                && buckets[word.length()].find(word) >= 0;
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+
+        List<String> words = new ArrayList<>();
+        wordle(length, greys, greens, yellows, words::add);
+        return words;
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+
+        if (length < 0 || length >= buckets.length || buckets[length] == null)
+            return;
+
+        // letters outside the alphabet never appear, so as greys they exclude nothing
+        int greyMask = 0;
+        for (Character grey : greys) {
+            int letter = WordleQuery.letter(grey);
+            if (letter >= 0)
+                greyMask |= 1 << letter;
+        }
+
+        // ... but as yellows or greens they exclude everything
+        int yellowMask = 0;
+        for (Character yellow : yellows) {
+            int letter = WordleQuery.letter(yellow);
+            if (letter < 0)
+                return;
+            yellowMask |= 1 << letter;
+        }
+
+        int count = 0;
+        int[] positions = new int[greens.size()];
+        byte[] codes = new byte[greens.size()];
+        for (Map.Entry<Integer, Character> green : greens.entrySet()) {
+            // greens outside the word are ignored, like the trie does
+            if (green.getKey() < 0 || green.getKey() >= length)
+                continue;
+            int letter = WordleQuery.letter(green.getValue());
+            if (letter < 0)
+                return;
+            positions[count] = green.getKey();
+            codes[count] = (byte) letter;
+            count++;
+        }
+
+        buckets[length].scan(greyMask, yellowMask, positions, codes, count, action);
+    }
+
+    // All the words of one length.
+    private static class Bucket {
+        private final int length;
+        private int size;
+        private byte[] letters;
+        private int[] masks;
+
+        // open addressing table of word ids + 1 for contains(), 0 is an empty slot
+        private int[] table;
+
+        private Bucket(int length) {
+            this.length = length;
+            this.letters = new byte[length * 16];
+            this.masks = new int[16];
+            this.table = new int[32];
+        }
+
+        private void add(String word) {
+            if (find(word) >= 0)
+                return;
+
+            if (size == masks.length) {
+                masks = Arrays.copyOf(masks, size * 2);
+                letters = Arrays.copyOf(letters, size * 2 * length);
+            }
+
+            int mask = 0;
+            for (int i = 0; i < length; i++) {
+                int letter = word.charAt(i) - 'a';
+                letters[size * length + i] = (byte) letter;
+                mask |= 1 << letter;
+            }
+            masks[size] = mask;
+
+            insert(size, hash(word));
+            size++;
+
+            // keep the table at most half full
+            if (size * 2 > table.length)
+                rehash();
+        }
+
+        // id of a word in the bucket, -1 if it is not there
+        private int find(String word) {
+            int slot = hash(word) & (table.length - 1);
+            while (table[slot] != 0) {
+                if (matches(table[slot] - 1, word))
+                    return table[slot] - 1;
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return -1;
+        }
+
+        private boolean matches(int id, String word) {
+            for (int i = 0; i < length; i++) {
+                if (letters[id * length + i] != word.charAt(i) - 'a')
+                    return false;
+            }
+            return true;
+        }
+
+        private void insert(int id, int hash) {
+            int slot = hash & (table.length - 1);
+            while (table[slot] != 0)
+                slot = (slot + 1) & (table.length - 1);
+            table[slot] = id + 1;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            for (int id = 0; id < size; id++) {
+                int hash = 0;
+                for (int i = 0; i < length; i++)
+                    hash = 31 * hash + letters[id * length + i];
+                insert(id, mix(hash));
+            }
+        }
+
+        private static int hash(String word) {
+            int hash = 0;
+            for (int i = 0; i < word.length(); i++)
+                hash = 31 * hash + (word.charAt(i) - 'a');
+            return mix(hash);
+        }
+
+        // spread the bits so that similar words land far apart
+        private static int mix(int hash) {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        // Scan every word: mask tests first since they reject most words, then the greens.
+        private void scan(int greyMask, int yellowMask, int[] positions, byte[] codes, int count,
+                Consumer<String> action) {
+
+            char[] word = new char[length];
+            for (int id = 0; id < size; id++) {
+                int mask = masks[id];
+                if ((mask & greyMask) != 0 | (mask & yellowMask) != yellowMask)
+                    continue;
+
+                int offset = id * length;
+                boolean green = true;
+                for (int i = 0; i < count; i++)
+                    green &= letters[offset + positions[i]] == codes[i];
+                if (!green)
+                    continue;
+
+                for (int i = 0; i < length; i++)
+                    word[i] = (char) ('a' + letters[offset + i]);
+                action.accept(new String(word));
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Decorator remembering the results of recent wordle queries of another lexicon.
+ *
+ * Games that open with the same guesses reach the same constraints, so their queries are answered from a bounded
+ * LRU cache. The constraints are first reduced to a canonical key: masks of the grey and yellow letters and the
+ * green letter at each position, so the order of the sets and repeated yellows do not matter. Queries with
+ * characters outside {@link Alphabets#FULL_ALPHABET} are not cached. Queries of a {@link Constraint} are cached
+ * under the constraint itself, which is immutable. The other queries, contains(), counts, streams and samples, are
+ * passed to the underlying lexicon.
+ *
+ * The cache is split into stripes, each an access-ordered map with its own lock, so concurrent queries mostly
+ * lock different stripes. Cached results are unmodifiable lists.
+ *
+ * Each result is tagged with the generation of the lexicon it was computed from, which every {@link #add(String)}
+ * increments. A result of an older generation is never returned nor stored, so a query that was computed before a
+ * word was added cannot be cached after it, and adding words does not have to go through the stripes.
+ */
+public class CachingLexicon implements Lexicon {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int STRIPES = 16;
+
+    // the canonical form of a query.
+    private static final class Key {
+        private final int length;
+        private final int greys;
+        private final int yellows;
+        private final char[] greens;
+        private final int hash;
+
+        private Key(int length, int greys, int yellows, char[] greens) {
+            this.length = length;
+            this.greys = greys;
+            this.yellows = yellows;
+            this.greens = greens;
+            this.hash = 31 * (31 * (31 * length + greys) + yellows) + Arrays.hashCode(greens);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return length == key.length && greys == key.greys && yellows == key.yellows
+                    && Arrays.equals(greens, key.greens);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // a cached result, with the generation of the lexicon it was computed from.
+    private static final class Result {
+        private final List<String> words;
+        private final long generation;
+
+        private Result(List<String> words, long generation) {
+            this.words = words;
+            this.generation = generation;
+        }
+    }
+
+    // one stripe of the cache, evicting its least recently used entry when full.
+    private final class Stripe extends LinkedHashMap<Object, Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Result> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    private final Lexicon lexicon;
+    private final Stripe[] stripes;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cache the queries of a lexicon, with room for {@link #DEFAULT_CAPACITY} results.
+     * @param lexicon the lexicon.
+     */
+    public CachingLexicon(Lexicon lexicon) {
+        this(lexicon, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Cache the queries of a lexicon.
+     * @param lexicon the lexicon.
+     * @param capacity the number of results to keep.
+     */
+    public CachingLexicon(Lexicon lexicon, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity must be positive.");
+
+        this.lexicon = lexicon;
+        this.stripes = new Stripe[Math.min(STRIPES, capacity)];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe((capacity + stripes.length - 1 - i) / stripes.length);
+    }
+
+    /**
+     * Add a word to the underlying lexicon. Cached results may no longer be complete, so they are all dropped as
+     * they are next looked up.
+     * @param word the word to add to the lexicon.
+     */
+    @Override
+    public void add(String word) {
+        lexicon.add(word);
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Add words to the underlying lexicon at once, see {@link #add(String)}.
+     * @param words the words to add to the lexicon.
+     */
+    @Override
+    public void addAll(Collection<String> words) {
+        lexicon.addAll(words);
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        return lexicon.contains(word);
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+        Key key = key(length, greys, greens, yellows);
+        if (key == null)
+            return lexicon.wordle(length, greys, greens, yellows);
+        return cached(key, () -> lexicon.wordle(length, greys, greens, yellows));
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+        wordle(length, greys, greens, yellows).forEach(action);
+    }
+
+    @Override
+    public List<String> wordle(Constraint constraint) {
+        return cached(constraint, () -> lexicon.wordle(constraint));
+    }
+
+    @Override
+    public void wordle(Constraint constraint, Consumer<String> action) {
+        wordle(constraint).forEach(action);
+    }
+
+    // streams are consumed lazily, often only in part, so they are not cached.
+    @Override
+    public Stream<String> wordleStream(Constraint constraint) {
+        return lexicon.wordleStream(constraint);
+    }
+
+    @Override
+    public long countWordle(Constraint constraint) {
+        return lexicon.countWordle(constraint);
+    }
+
+    @Override
+    public String sample(int length, Random random) {
+        return lexicon.sample(length, random);
+    }
+
+    // look up the result of a query, computing and keeping it on a miss.
+    private List<String> cached(Object key, Supplier<List<String>> query) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes.length];
+        long current = generation.get();
+        synchronized (stripe) {
+            Result cached = stripe.get(key);
+            if (cached != null && cached.generation == current) {
+                hits.increment();
+                return cached.words;
+            }
+        }
+
+        // query outside the lock, two threads missing on the same key both compute it. A word added meanwhile
+        // may be missing from the result, which is then returned but not kept.
+        misses.increment();
+        List<String> words = List.copyOf(query.get());
+        synchronized (stripe) {
+            if (generation.get() == current)
+                stripe.put(key, new Result(words, current));
+        }
+        return words;
+    }
+
+    // reduce the constraints to a key, or null if they are outside the alphabet.
+    private static Key key(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+        if (length < 0)
+            return null;
+
+        int greyMask = 0;
+        for (Character grey : greys) {
+            int letter = WordleQuery.letter(grey);
+            if (letter < 0)
+                return null;
+            greyMask |= 1 << letter;
+        }
+
+        int yellowMask = 0;
+        for (Character yellow : yellows) {
+            int letter = WordleQuery.letter(yellow);
+            if (letter < 0)
+                return null;
+            yellowMask |= 1 << letter;
+        }
+
+        // greens past the end of the word never apply
+        char[] positions = new char[length];
+        for (Map.Entry<Integer, Character> green : greens.entrySet()) {
+            int position = green.getKey();
+            if (position >= 0 && position < length) {
+                if (WordleQuery.letter(green.getValue()) < 0)
+                    return null;
+                positions[position] = green.getValue();
+            }
+        }
+
+        return new Key(length, greyMask, yellowMask, positions);
+    }
+
+    /**
+     * Drop every cached result.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached results of the current generation.
+     */
+    public int size() {
+        long current = generation.get();
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Result cached : stripe.values()) {
+                    if (cached.generation == current)
+                        size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of queries answered from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of cacheable queries sent to the underlying lexicon.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of results dropped to make room for others.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the fraction of cacheable queries answered from the cache, 0 if there were none.
+     */
+    public double getHitRate() {
+        long found = getHits();
+        long total = found + getMisses();
+        return total == 0 ? 0 : (double) found / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d cached", getHits(), getMisses(),
+                getHitRate() * 100, getEvictions(), size());
+    }
+}
@@ -0,0 +1,118 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The possible solutions of one game, narrowed after every guess.
+ *
+ * The words of the right length are fetched from the lexicon once. Each guess then only re-checks the words that
+ * survived the previous guesses, tracked as a bit set over word ids, instead of querying the whole lexicon again.
+ */
+public class CandidateSet {
+
+    private final String[] words;
+    private final BitSet survivors;
+
+    /**
+     * Start with every lexicon word of a length.
+     * @param lexicon the lexicon.
+     * @param length the word length.
+     */
+    public CandidateSet(Lexicon lexicon, int length) {
+        this(lexicon.wordle(length, Set.of(), Map.of(), List.of()));
+    }
+
+    /**
+     * Start with a list of words.
+     * @param words the possible solutions, all of the same length.
+     */
+    public CandidateSet(List<String> words) {
+        this.words = words.toArray(new String[0]);
+        this.survivors = new BitSet(this.words.length);
+        survivors.set(0, this.words.length);
+    }
+
+    /**
+     * Keep only the words consistent with the result of a guess, using its constraint when it has one.
+     * @param result the result of the guess.
+     * @return the number of words left.
+     */
+    public int narrow(Wordle.Result result) {
+        if (result.getConstraint() != null)
+            return narrow(result.getConstraint());
+        return narrow(result.getGreys(), result.getGreens(), result.getYellows());
+    }
+
+    /**
+     * Keep only the words consistent with the full constraint of a game.
+     * @param constraint the constraint.
+     * @return the number of words left.
+     */
+    public int narrow(Constraint constraint) {
+        for (int id = survivors.nextSetBit(0); id >= 0; id = survivors.nextSetBit(id + 1)) {
+            if (!constraint.matches(words[id]))
+                survivors.clear(id);
+        }
+        return size();
+    }
+
+    /**
+     * Keep only the words consistent with a set of constraints.
+     * @param greys The characters that should not appear in the word.
+     * @param greens The characters correct with their position.
+     * @param yellows The characters that are correct but with unknown position.
+     * @return the number of words left.
+     */
+    public int narrow(Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows) {
+        if (words.length == 0)
+            return 0;
+
+        WordleQuery query = new WordleQuery(words[0].length(), greys, greens, yellows);
+        for (int id = survivors.nextSetBit(0); id >= 0; id = survivors.nextSetBit(id + 1)) {
+            if (!matches(words[id], query))
+                survivors.clear(id);
+        }
+        return size();
+    }
+
+    // check a word one letter at a time, like a trie walk does.
+    private static boolean matches(String word, WordleQuery query) {
+        int found = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char letter = word.charAt(i);
+            if (!query.allows(i, letter))
+                return false;
+            found = query.find(found, letter);
+        }
+        return query.accepts(found, word);
+    }
+
+    /**
+     * @return the number of words left.
+     */
+    public int size() {
+        return survivors.cardinality();
+    }
+
+    /**
+     * @return the first word left in lexicon order, or null if there are none.
+     */
+    public String getFirst() {
+        int id = survivors.nextSetBit(0);
+        return id < 0 ? null : words[id];
+    }
+
+    /**
+     * @return the words left, in lexicon order.
+     */
+    public List<String> getWords() {
+        List<String> left = new ArrayList<>(size());
+        for (int id = survivors.nextSetBit(0); id >= 0; id = survivors.nextSetBit(id + 1))
+            left.add(words[id]);
+        return left;
+    }
+}
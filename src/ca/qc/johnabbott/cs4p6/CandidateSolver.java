@@ -0,0 +1,39 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Solver that plays the first remaining candidate, like following the cheat mode of {@link WordleApp}.
+ */
+public class CandidateSolver implements Solver {
+
+    private final CandidateSet candidates;
+
+    private CandidateSolver(List<String> words) {
+        this.candidates = new CandidateSet(words);
+    }
+
+    /**
+     * Create solvers sharing the words of a lexicon.
+     * @param lexicon the lexicon.
+     * @param length the word length.
+     * @return a supplier of solvers, one per game.
+     */
+    public static Supplier<Solver> factory(Lexicon lexicon, int length) {
+        List<String> words = List.copyOf(lexicon.wordle(length, Set.of(), Map.of(), List.of()));
+        return () -> new CandidateSolver(words);
+    }
+
+    @Override
+    public String nextGuess() {
+        return candidates.getFirst();
+    }
+
+    @Override
+    public void update(String guess, Wordle.Result result) {
+        candidates.narrow(result);
+    }
+}
@@ -0,0 +1,328 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything the guesses of a game have revealed about the answer: the letters still possible at each position,
+ * and the minimum and maximum number of times each letter appears.
+ *
+ * Unlike the greys, greens and yellows of a {@link Wordle.Result}, nothing is simplified away: a yellow also
+ * forbids its letter at its position, yellows accumulate over guesses, and a grey repeated letter only caps the
+ * count of that letter instead of removing it from the word.
+ *
+ * Constraints are immutable, each guess produces a new one with {@link #with(CharSequence, int)}, or
+ * {@link #with(CharSequence, Wordle.Color[])} for words too long for a pattern code.
+ */
+public final class Constraint {
+
+    private static final int ALPHABET_SIZE = Alphabets.FULL_ALPHABET.length;
+
+    private final int length;
+
+    // letters allowed at each position, and the green at each position (0 if none)
+    private final int[] allowed;
+    private final char[] greens;
+
+    // bounds on the number of times each letter appears
+    private final int[] min;
+    private final int[] max;
+
+    /**
+     * A constraint with nothing known yet.
+     * @param length the word length.
+     */
+    public Constraint(int length) {
+        if (length < 0)
+            throw new IllegalArgumentException("The length cannot be negative.");
+
+        this.length = length;
+        this.allowed = new int[length];
+        this.greens = new char[length];
+        this.min = new int[ALPHABET_SIZE];
+        this.max = new int[ALPHABET_SIZE];
+        Arrays.fill(allowed, (1 << ALPHABET_SIZE) - 1);
+        Arrays.fill(max, length);
+    }
+
+    private Constraint(Constraint other) {
+        this.length = other.length;
+        this.allowed = other.allowed.clone();
+        this.greens = other.greens.clone();
+        this.min = other.min.clone();
+        this.max = other.max.clone();
+    }
+
+    /**
+     * Add what the pattern of a guess reveals.
+     * @param guess the guess.
+     * @param pattern its pattern code, see {@link Wordle#score(CharSequence, CharSequence)}.
+     * @return the combined constraint.
+     */
+    public Constraint with(CharSequence guess, int pattern) {
+        return with(guess, Wordle.colors(pattern, guess.length()));
+    }
+
+    /**
+     * Add what the colors of a guess reveal, for words too long for a pattern code.
+     * @param guess the guess.
+     * @param colors the color of each of its letters.
+     * @return the combined constraint.
+     */
+    public Constraint with(CharSequence guess, Wordle.Color[] colors) {
+        if (guess.length() != length || colors.length != length)
+            throw new IllegalArgumentException("\"" + guess + "\" is not " + length + " letters long.");
+
+        Constraint next = new Constraint(this);
+
+        // greens and yellows count the letters known to be there, a grey means there are no more than that
+        int[] present = new int[ALPHABET_SIZE];
+        boolean[] capped = new boolean[ALPHABET_SIZE];
+        for (int i = 0; i < length; i++) {
+            char c = guess.charAt(i);
+            int letter = WordleQuery.letter(c);
+
+            if (colors[i] == Wordle.Color.GREEN) {
+                next.greens[i] = c;
+                next.allowed[i] &= letter >= 0 ? 1 << letter : 0;
+            }
+            else if (letter >= 0)
+                next.allowed[i] &= ~(1 << letter);
+
+            // characters outside the alphabet only keep their greens
+            if (letter >= 0) {
+                if (colors[i] == Wordle.Color.GREY)
+                    capped[letter] = true;
+                else
+                    present[letter]++;
+            }
+        }
+
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+            next.min[letter] = Math.max(next.min[letter], present[letter]);
+            if (capped[letter])
+                next.max[letter] = Math.min(next.max[letter], present[letter]);
+
+            // a letter that cannot appear is removed from every position
+            if (next.max[letter] == 0) {
+                for (int i = 0; i < length; i++)
+                    next.allowed[i] &= ~(1 << letter);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return the word length.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Test a letter against the letters still possible at a position.
+     * @param position the position of the letter in the word.
+     * @param c the letter.
+     * @return true if the letter can appear at this position.
+     */
+    public boolean allows(int position, char c) {
+        if (position >= length)
+            return false;
+
+        int letter = WordleQuery.letter(c);
+        if (letter < 0)
+            return greens[position] == 0 || greens[position] == c;
+
+        return (allowed[position] & (1 << letter)) != 0;
+    }
+
+    /**
+     * @param position a position in the word.
+     * @return true if the letter at the position is known.
+     */
+    boolean isGreen(int position) {
+        return greens[position] != 0;
+    }
+
+    /**
+     * @param c a letter.
+     * @return the number of times the letter appears at least.
+     */
+    public int getMin(char c) {
+        int letter = WordleQuery.letter(c);
+        return letter < 0 ? 0 : min[letter];
+    }
+
+    /**
+     * @param c a letter.
+     * @return the number of times the letter appears at most.
+     */
+    public int getMax(char c) {
+        int letter = WordleQuery.letter(c);
+        return letter < 0 ? length : max[letter];
+    }
+
+    // the bounds by letter index, for walks that count letters as they go
+    int min(int letter) {
+        return min[letter];
+    }
+
+    int max(int letter) {
+        return max[letter];
+    }
+
+    /**
+     * @return the number of letters that are known to appear, counting repeats.
+     */
+    int getMissing() {
+        int missing = 0;
+        for (int count : min)
+            missing += count;
+        return missing;
+    }
+
+    /**
+     * @return the first position from which the rest of the word is unconstrained: every later position allows
+     * any letter and no letter has a maximum count. The word length if there is none.
+     */
+    int getFreeFrom() {
+        for (int max : this.max) {
+            if (max < length)
+                return length;
+        }
+
+        int position = length;
+        while (position > 0 && greens[position - 1] == 0 && allowed[position - 1] == (1 << ALPHABET_SIZE) - 1)
+            position--;
+        return position;
+    }
+
+    /**
+     * Test a complete word.
+     * @param word the word.
+     * @return true if the word could still be the answer.
+     */
+    public boolean matches(CharSequence word) {
+        if (word.length() != length)
+            return false;
+
+        int[] counts = new int[ALPHABET_SIZE];
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (!allows(i, c))
+                return false;
+            int letter = WordleQuery.letter(c);
+            if (letter >= 0)
+                counts[letter]++;
+        }
+
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+            if (counts[letter] < min[letter] || counts[letter] > max[letter])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the letters that cannot appear anywhere, as greys for {@link Lexicon#wordle(int, Set, Map, List)}.
+     */
+    public Set<Character> getGreys() {
+        Set<Character> greys = new HashSet<>();
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+            if (max[letter] == 0)
+                greys.add(Alphabets.FULL_ALPHABET[letter]);
+        }
+        return greys;
+    }
+
+    /**
+     * @return the letters known at their position, as greens for {@link Lexicon#wordle(int, Set, Map, List)}.
+     */
+    public Map<Integer, Character> getGreens() {
+        Map<Integer, Character> known = new HashMap<>();
+        for (int i = 0; i < length; i++) {
+            if (greens[i] != 0)
+                known.put(i, greens[i]);
+        }
+        return known;
+    }
+
+    /**
+     * @return the letters known to appear, as yellows for {@link Lexicon#wordle(int, Set, Map, List)}.
+     */
+    public List<Character> getYellows() {
+        List<Character> yellows = new ArrayList<>();
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+            if (min[letter] > 0)
+                yellows.add(Alphabets.FULL_ALPHABET[letter]);
+        }
+        return yellows;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Constraint))
+            return false;
+        Constraint other = (Constraint) o;
+        return length == other.length && Arrays.equals(allowed, other.allowed) && Arrays.equals(greens, other.greens)
+                && Arrays.equals(min, other.min) && Arrays.equals(max, other.max);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = length;
+        hash = 31 * hash + Arrays.hashCode(allowed);
+        hash = 31 * hash + Arrays.hashCode(greens);
+        hash = 31 * hash + Arrays.hashCode(min);
+        return 31 * hash + Arrays.hashCode(max);
+    }
+
+    /**
+     * @return the constraint as a pattern, e.g. "s[^abd]o.. n>=1", followed by the letter counts.
+     */
+    @Override
+    public String toString() {
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (greens[i] != 0) {
+                pattern.append(greens[i]);
+                continue;
+            }
+
+            // the letters ruled out here, other than those ruled out everywhere
+            Set<Character> forbidden = new LinkedHashSet<>();
+            for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+                if ((allowed[i] & (1 << letter)) == 0 && max[letter] > 0)
+                    forbidden.add(Alphabets.FULL_ALPHABET[letter]);
+            }
+            if (forbidden.isEmpty())
+                pattern.append('.');
+            else {
+                pattern.append("[^");
+                forbidden.forEach(pattern::append);
+                pattern.append(']');
+            }
+        }
+
+        for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+            char c = Alphabets.FULL_ALPHABET[letter];
+            if (max[letter] == 0)
+                pattern.append(' ').append(c).append("=0");
+            else if (min[letter] == max[letter])
+                pattern.append(' ').append(c).append('=').append(min[letter]);
+            else if (min[letter] > 0)
+                pattern.append(' ').append(c).append(">=").append(min[letter]);
+            else if (max[letter] < length)
+                pattern.append(' ').append(c).append("<=").append(max[letter]);
+        }
+        return pattern.toString();
+    }
+}
@@ -0,0 +1,224 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Minimal acyclic word automaton (DAWG): a trie whose identical subtrees are merged, so words share their
+ * suffixes as well as their prefixes.
+ *
+ * Words must be added in sorted order, which lets the automaton be minimized as it is built (Daciuk et al.,
+ * "Incremental Construction of Minimal Acyclic Finite-State Automata", 2000). Once a word is added, the nodes of
+ * the previous word past their common prefix can no longer change, so each is replaced by an equal node already
+ * registered, or registered itself. Only the nodes of the last word added are not yet minimized.
+ */
+public class Dawg implements Lexicon {
+
+    // nodes that can no longer change, each the only one of its kind
+    private final Map<DawgNode, DawgNode> register;
+
+    // the nodes of the last word added, from the root
+    private final List<DawgNode> path;
+    private String previous;
+
+    /**
+     * Create an empty automaton.
+     */
+    public Dawg() {
+        this.register = new HashMap<>();
+        this.path = new ArrayList<>();
+        path.add(new DawgNode());
+    }
+
+    /**
+     * Add a word, which must come after every word added so far. Adding the last word again has no effect.
+     * @param word the word to add to the lexicon.
+     */
+    @Override
+    public void add(String word) {
+        int prefix = 0;
+        if (previous != null) {
+            int order = word.compareTo(previous);
+            if (order == 0)
+                return;
+            if (order < 0)
+                throw new IllegalArgumentException("\"" + word + "\" is added after \"" + previous
+                        + "\", words must be added in sorted order.");
+
+            while (prefix < word.length() && prefix < previous.length()
+                    && word.charAt(prefix) == previous.charAt(prefix))
+                prefix++;
+        }
+
+        // the rest of the previous word is final, then the rest of this word hangs from the common prefix
+        minimize(prefix);
+        for (int i = prefix; i < word.length(); i++) {
+            DawgNode node = new DawgNode();
+            path.get(i).addChild(word.charAt(i), node);
+            path.add(node);
+        }
+        path.get(word.length()).setWord(true);
+        previous = word;
+    }
+
+    /**
+     * Add many words at once, in any order. They are sorted first, then added in turn after the words already in
+     * the lexicon, which must all come before them.
+     * @param words the words to add.
+     */
+    @Override
+    public void addAll(Collection<String> words) {
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+        for (String word : sorted)
+            add(word);
+    }
+
+    // replace or register the nodes of the previous word below a depth, deepest first.
+    private void minimize(int depth) {
+        for (int i = path.size() - 1; i > depth; i--) {
+            DawgNode node = path.remove(i);
+            DawgNode registered = register.putIfAbsent(node, node);
+            if (registered != null)
+                path.get(i - 1).setLastChild(registered);
+        }
+    }
+
+    /**
+     * @return the number of distinct nodes.
+     */
+    public int size() {
+        return register.size() + path.size();
+    }
+
+    @Override
+    public boolean contains(String word) {
+        DawgNode current = path.get(0);
+        for (int i = 0; i < word.length() && current != null; i++)
+            current = current.getChild(word.charAt(i));
+        return current != null && current.isWord();
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+
+        List<String> words = new ArrayList<>();
+        wordle(length, greys, greens, yellows, words::add);
+        return words;
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+
+        WordleQuery query = new WordleQuery(length, greys, greens, yellows);
+        getWords(path.get(0), new char[Math.max(length, 0)], 0, 0, action, query);
+    }
+
+    // Walk the automaton like a trie. A shared node is visited once per path that
+    // reaches it, since each path spells a different prefix.
+    private void getWords(DawgNode node, char[] word, int depth, int found, Consumer<String> action,
+            WordleQuery query) {
+
+        // Base case: the branch is the correct length.
+        if (depth == word.length) {
+            if (node.isWord()) {
+                String candidate = new String(word);
+                if (query.accepts(found, candidate))
+                    action.accept(candidate);
+            }
+            return;
+        }
+
+        // Recursive case: visit the children in letter order.
+        char[] labels = node.getLabels();
+        DawgNode[] children = node.getChildren();
+        for (int i = 0; i < labels.length; i++) {
+            char letter = labels[i];
+            if (!query.allows(depth, letter))
+                continue;
+
+            int childFound = query.find(found, letter);
+            if (query.canFinish(depth + 1, childFound)) {
+                word[depth] = letter;
+                getWords(children[i], word, depth + 1, childFound, action, query);
+            }
+        }
+    }
+}
+
+class DawgNode {
+    private static final char[] NO_LABELS = new char[0];
+    private static final DawgNode[] NO_CHILDREN = new DawgNode[0];
+
+    // children sorted by label, only ever appended to since words arrive in order
+    private char[] labels = NO_LABELS;
+    private DawgNode[] children = NO_CHILDREN;
+    private boolean isWord = false;
+
+    public char[] getLabels() {
+        return labels;
+    }
+
+    public DawgNode[] getChildren() {
+        return children;
+    }
+
+    public DawgNode getChild(char label) {
+        int i = Arrays.binarySearch(labels, label);
+        return i < 0 ? null : children[i];
+    }
+
+    public void addChild(char label, DawgNode child) {
+        labels = Arrays.copyOf(labels, labels.length + 1);
+        children = Arrays.copyOf(children, children.length + 1);
+        labels[labels.length - 1] = label;
+        children[children.length - 1] = child;
+    }
+
+    public void setLastChild(DawgNode child) {
+        children[children.length - 1] = child;
+    }
+
+    public boolean isWord() {
+        return isWord;
+    }
+
+    public void setWord(boolean isWord) {
+        this.isWord = isWord;
+    }
+
+    // Two nodes are equal when they accept the same suffixes. Their children are
+    // already minimized, so it is enough to compare them by identity.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof DawgNode))
+            return false;
+
+        DawgNode node = (DawgNode) o;
+        if (isWord != node.isWord || !Arrays.equals(labels, node.labels))
+            return false;
+        for (int i = 0; i < children.length; i++) {
+            if (children[i] != node.children[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Boolean.hashCode(isWord);
+        for (int i = 0; i < labels.length; i++)
+            hash = 31 * (31 * hash + labels[i]) + System.identityHashCode(children[i]);
+        return hash;
+    }
+}
@@ -0,0 +1,120 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Equivalence check of {@link Dawg} against {@link Trie}: both are loaded with the full lexicon, the DAWG from
+ * two files of shuffled words through {@link LexiconLoader} so it must sort them itself, then both must give the
+ * same answers.
+ *
+ * Every word and a non-word derived from each is looked up with contains(). Random games of several lengths
+ * are played, and after each guess the solutions of its constraint, of its greys, greens and yellows, and their
+ * count are compared. Solutions are compared as sorted lists, since the lexicons may find them in different
+ * orders. Any difference is reported and fails the run.
+ *
+ * Usage: DawgCheck [games]
+ */
+public class DawgCheck {
+
+    public static final int DEFAULT_GAMES = 200;
+
+    private static final int[] LENGTHS = { 3, 4, 5, 6, 7, 9 };
+    private static final int MAX_REPORTED = 10;
+
+    private static int checks;
+    private static int differences;
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+
+        Lexicon trie = new Trie();
+        LexiconLoader.load(trie, Alphabets.LEXICON_FULL);
+
+        List<String> words = new ArrayList<>();
+        LexiconLoader.forEachWord(words::add, Alphabets.LEXICON_FULL);
+        Lexicon dawg = loadShuffled(words);
+
+        // every word, and every word with its last letter replaced, which is not a word
+        for (String word : words) {
+            check("contains " + word, trie.contains(word), dawg.contains(word));
+            String miss = word.substring(0, word.length() - 1) + '#';
+            check("contains " + miss, trie.contains(miss), dawg.contains(miss));
+        }
+
+        Random random = new Random();
+        int guesses = 0;
+        for (int game = 0; game < games; game++) {
+            int length = LENGTHS[game % LENGTHS.length];
+            List<String> answers = trie.wordle(new Constraint(length));
+            Wordle wordle = new Wordle(answers.get(random.nextInt(answers.size())));
+            wordle.setLexicon(trie);
+
+            for (int guess = 0; guess < Wordle.MAX_GUESSES; guess++) {
+                Wordle.Result result = wordle.guess(answers.get(random.nextInt(answers.size())));
+                guesses++;
+                compare(trie, dawg, result);
+                if (result.isCorrect())
+                    break;
+            }
+        }
+
+        System.out.printf("%d words, %d games, %d guesses, %d checks, %d differences\n", words.size(), games,
+                guesses, checks, differences);
+        if (differences > 0)
+            throw new IllegalStateException("The equivalence check failed.");
+    }
+
+    // load a DAWG from the words shuffled and split into two files.
+    private static Lexicon loadShuffled(List<String> words) throws IOException {
+        List<String> shuffled = new ArrayList<>(words);
+        Collections.shuffle(shuffled);
+        int half = shuffled.size() / 2;
+
+        Path first = Files.createTempFile("lexicon", ".txt");
+        Path second = Files.createTempFile("lexicon", ".txt");
+        try {
+            Files.write(first, shuffled.subList(0, half), StandardCharsets.UTF_8);
+            Files.write(second, shuffled.subList(half, shuffled.size()), StandardCharsets.UTF_8);
+            Lexicon dawg = Lexicons.create(Lexicons.DAWG);
+            LexiconLoader.load(dawg, first.toString(), second.toString());
+            return dawg;
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    // compare the queries of the state of a game after a guess.
+    private static void compare(Lexicon trie, Lexicon dawg, Wordle.Result result) {
+        Constraint constraint = result.getConstraint();
+        check("wordle " + constraint, sorted(trie.wordle(constraint)), sorted(dawg.wordle(constraint)));
+        check("count " + constraint, trie.countWordle(constraint), dawg.countWordle(constraint));
+
+        int length = constraint.getLength();
+        check("wordle " + result.getGreys() + " " + result.getGreens() + " " + result.getYellows(),
+                sorted(trie.wordle(length, result.getGreys(), result.getGreens(), result.getYellows())),
+                sorted(dawg.wordle(length, result.getGreys(), result.getGreens(), result.getYellows())));
+    }
+
+    private static List<String> sorted(List<String> words) {
+        List<String> sorted = new ArrayList<>(words);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static void check(String query, Object expected, Object actual) {
+        checks++;
+        if (expected.equals(actual))
+            return;
+
+        if (differences++ < MAX_REPORTED)
+            System.out.println(query + ": trie " + expected + ", dawg " + actual);
+    }
+}
@@ -0,0 +1,374 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The guess a solver plays in every state of a game, computed once for a fixed list of answers.
+ *
+ * The root holds the opening guess, and the child of a node for a pattern holds the guess to play after seeing
+ * that pattern. The solved pattern has no child since the game is over. Guesses are chosen like
+ * {@link AdvisorSolver} does, so playing the tree gives the same games without ranking guesses at play time.
+ *
+ * Like {@link FrozenTrie}, nodes are numbered in level order with node 0 as the root, so the children of a node
+ * are consecutive and sorted by pattern. Each node stores its guess, a bitmap of the patterns it has a child for
+ * and its first child, so the child for a pattern is found by counting the bits below it: a constant time
+ * lookup. The arrays are read through buffers, so a tree can be backed by heap arrays or a memory-mapped file.
+ *
+ * A tree file records the checksum of the word files it was built from, like {@link TrieImage}, so a stale tree
+ * is rebuilt by {@link #loadOrBuild(Path, String...)} instead of being played against other answers.
+ *
+ * Usage: DecisionTree [file]
+ */
+public class DecisionTree {
+
+    // 3^5 patterns for words of up to 5 letters, see FeedbackMatrix
+    private static final int PATTERNS = 243;
+    private static final int PATTERN_WORDS = (PATTERNS + Long.SIZE - 1) / Long.SIZE;
+
+    private static final int MAGIC = 0x57445452;
+    private static final int VERSION = 2;
+    private static final int HEADER = 4 + 4 + 8 + 4 + 4 + 4;
+
+    public static final String DEFAULT_FILE = "decision-tree.bin";
+
+    private final String[] words;
+    private final IntBuffer guesses;
+    private final LongBuffer patterns;
+    private final IntBuffer firstChild;
+
+    private DecisionTree(String[] words, IntBuffer guesses, LongBuffer patterns, IntBuffer firstChild) {
+        this.words = words;
+        this.guesses = guesses;
+        this.patterns = patterns;
+        this.firstChild = firstChild;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE);
+
+        long start = System.nanoTime();
+        DecisionTree tree = build(file, Alphabets.LEXICON_FULL);
+        System.out.printf("Built %d nodes in %.1f s, opening with \"%s\".\n", tree.size(),
+                (System.nanoTime() - start) / 1e9, tree.getGuess(0));
+        System.out.println("Wrote " + file + ".");
+    }
+
+    // #region Build
+
+    // a node while building, before it is numbered.
+    private static class Branch {
+        private final int guess;
+        private final int[] patterns;
+        private final Branch[] children;
+
+        private Branch(int guess, int[] patterns, Branch[] children) {
+            this.guess = guess;
+            this.patterns = patterns;
+            this.children = children;
+        }
+    }
+
+    // choose the guess for a state, then build the subtree of every pattern in parallel.
+    private static class BuildTask extends RecursiveTask<Branch> {
+        private static final long serialVersionUID = 1L;
+
+        private final FeedbackMatrix matrix;
+        private final GuessAdvisor advisor;
+        private final BitSet candidates;
+
+        private BuildTask(FeedbackMatrix matrix, GuessAdvisor advisor, BitSet candidates) {
+            this.matrix = matrix;
+            this.advisor = advisor;
+            this.candidates = candidates;
+        }
+
+        @Override
+        protected Branch compute() {
+            // with two candidates left, guessing one of them is as good as anything, see AdvisorSolver
+            int guess;
+            if (candidates.cardinality() <= 2)
+                guess = candidates.nextSetBit(0);
+            else
+                guess = matrix.indexOf(advisor.rankUntil(candidates, 1, GuessAdvisor.NO_DEADLINE).get(0).getWord());
+
+            // split the candidates by pattern, leaving out the answer itself
+            BitSet[] split = new BitSet[PATTERNS];
+            for (int answer = candidates.nextSetBit(0); answer >= 0; answer = candidates.nextSetBit(answer + 1)) {
+                if (answer == guess)
+                    continue;
+                int pattern = matrix.pattern(guess, answer);
+                if (split[pattern] == null)
+                    split[pattern] = new BitSet(matrix.size());
+                split[pattern].set(answer);
+            }
+
+            List<Integer> patterns = new ArrayList<>();
+            List<BuildTask> tasks = new ArrayList<>();
+            for (int pattern = 0; pattern < PATTERNS; pattern++) {
+                if (split[pattern] != null) {
+                    patterns.add(pattern);
+                    tasks.add(new BuildTask(matrix, advisor, split[pattern]));
+                }
+            }
+            invokeAll(tasks);
+
+            Branch[] children = new Branch[tasks.size()];
+            for (int i = 0; i < children.length; i++)
+                children[i] = tasks.get(i).join();
+            return new Branch(guess, patterns.stream().mapToInt(Integer::intValue).toArray(), children);
+        }
+    }
+
+    /**
+     * Build the tree for the words of a matrix, which are both the allowed guesses and the possible answers.
+     * Subtrees are built in parallel on the common fork-join pool.
+     * @param matrix the patterns of the words.
+     * @return the tree.
+     */
+    public static DecisionTree build(FeedbackMatrix matrix) {
+        if (matrix.size() == 0)
+            throw new IllegalArgumentException("There are no words to build a tree for.");
+
+        BitSet all = new BitSet(matrix.size());
+        all.set(0, matrix.size());
+        Branch root = ForkJoinPool.commonPool().invoke(new BuildTask(matrix, new GuessAdvisor(matrix), all));
+
+        List<Branch> nodes = new ArrayList<>();
+        Queue<Branch> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Branch node = queue.remove();
+            nodes.add(node);
+            for (Branch child : node.children)
+                queue.add(child);
+        }
+
+        int[] guesses = new int[nodes.size()];
+        long[] patterns = new long[nodes.size() * PATTERN_WORDS];
+        int[] firstChild = new int[nodes.size()];
+
+        // in level order, the children of node i follow the children of nodes 0 to i - 1
+        int next = 1;
+        for (int i = 0; i < nodes.size(); i++) {
+            Branch node = nodes.get(i);
+            guesses[i] = node.guess;
+            for (int pattern : node.patterns)
+                patterns[i * PATTERN_WORDS + pattern / Long.SIZE] |= 1L << pattern;
+            firstChild[i] = next;
+            next += node.children.length;
+        }
+
+        String[] words = new String[matrix.size()];
+        for (int id = 0; id < words.length; id++)
+            words[id] = matrix.getWord(id);
+
+        return new DecisionTree(words, IntBuffer.wrap(guesses), LongBuffer.wrap(patterns), IntBuffer.wrap(firstChild));
+    }
+
+    /**
+     * Build the tree for the words of a length in word files and write it.
+     * @param file the tree file to write.
+     * @param files the word files.
+     * @return the tree that was written.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static DecisionTree build(Path file, String... files) throws IOException {
+        Lexicon lexicon = new Trie();
+        LexiconLoader.load(lexicon, files);
+        DecisionTree tree = build(FeedbackMatrix.build(lexicon));
+        tree.write(file, TrieImage.checksum(files));
+        return tree;
+    }
+
+    // #endregion
+
+    // #region Lookup
+
+    /**
+     * @return the number of nodes.
+     */
+    public int size() {
+        return guesses.limit();
+    }
+
+    /**
+     * @param node a node, 0 for the root.
+     * @return the guess to play at the node.
+     */
+    public String getGuess(int node) {
+        return words[guesses.get(node)];
+    }
+
+    /**
+     * Follow the pattern a guess showed.
+     * @param node the node of the guess.
+     * @param pattern the pattern code, see {@link Wordle.Result#getPattern()}.
+     * @return the node of the next guess, or -1 if the pattern is not possible for the answers of the tree.
+     */
+    public int next(int node, int pattern) {
+        if (pattern < 0 || pattern >= PATTERNS)
+            return -1;
+
+        int base = node * PATTERN_WORDS;
+        int word = pattern / Long.SIZE;
+        long bits = patterns.get(base + word);
+        if ((bits & (1L << pattern)) == 0)
+            return -1;
+
+        // rank: the children for the patterns below this one come first
+        int rank = Long.bitCount(bits & ((1L << pattern) - 1));
+        for (int i = 0; i < word; i++)
+            rank += Long.bitCount(patterns.get(base + i));
+        return firstChild.get(node) + rank;
+    }
+
+    // #endregion
+
+    // #region Storage
+
+    /**
+     * Write the tree to a file that {@link #load(Path)} can map.
+     *
+     * The file is little-endian: a header with the checksum of the word files, the pattern bitmaps, guesses and
+     * first children of the nodes, then the words. Sections are padded to 8 bytes so they stay aligned.
+     * @param file the file.
+     * @param checksum the checksum of the word files of the tree, see {@link TrieImage#checksum(String...)}.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file, long checksum) throws IOException {
+        int length = words[0].length();
+        int nodes = size();
+        ByteBuffer buffer = ByteBuffer.allocate(pad(HEADER) + nodes * PATTERN_WORDS * 8 + pad(nodes * 4)
+                + pad(nodes * 4) + words.length * length * 2).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(checksum).putInt(words.length).putInt(length).putInt(nodes);
+        buffer.position(pad(HEADER));
+
+        buffer.asLongBuffer().put(patterns.duplicate().clear());
+        buffer.position(buffer.position() + nodes * PATTERN_WORDS * 8);
+        buffer.asIntBuffer().put(guesses.duplicate().clear());
+        buffer.position(buffer.position() + pad(nodes * 4));
+        buffer.asIntBuffer().put(firstChild.duplicate().clear());
+        buffer.position(buffer.position() + pad(nodes * 4));
+        for (String word : words) {
+            for (int i = 0; i < length; i++)
+                buffer.putChar(word.charAt(i));
+        }
+
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Memory-map a tree written by {@link #write(Path, long)}.
+     * @param file the file.
+     * @return the tree, reading its nodes from the mapped file.
+     * @throws IOException if the file cannot be read or is not a decision tree.
+     */
+    public static DecisionTree load(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a decision tree.");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has unsupported version " + buffer.getInt(4) + ".");
+
+        int size = buffer.getInt(16);
+        int length = buffer.getInt(20);
+        int nodes = buffer.getInt(24);
+        if (size < 0 || length < 0 || nodes < 0 || buffer.limit() < size(size, length, nodes))
+            throw new IOException(file + " is truncated or corrupt.");
+
+        int position = pad(HEADER);
+        ByteBuffer patterns = slice(buffer, position, nodes * PATTERN_WORDS * 8);
+        position += nodes * PATTERN_WORDS * 8;
+        ByteBuffer guesses = slice(buffer, position, nodes * 4);
+        position += pad(nodes * 4);
+        ByteBuffer firstChild = slice(buffer, position, nodes * 4);
+        position += pad(nodes * 4);
+
+        String[] words = new String[size];
+        char[] word = new char[length];
+        for (int id = 0; id < size; id++) {
+            for (int i = 0; i < length; i++, position += 2)
+                word[i] = buffer.getChar(position);
+            words[id] = new String(word);
+        }
+
+        return new DecisionTree(words, guesses.asIntBuffer(), patterns.asLongBuffer(), firstChild.asIntBuffer());
+    }
+
+    /**
+     * Load a tree, first rebuilding it if it is missing, truncated or was built from different word files.
+     * @param file the tree file.
+     * @param files the word files.
+     * @return the tree, reading its nodes from the mapped file.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static DecisionTree loadOrBuild(Path file, String... files) throws IOException {
+        if (isCurrent(file, files)) {
+            try {
+                return load(file);
+            } catch (IOException e) {
+                // a tree left half-written is rebuilt like a stale one
+            }
+        }
+        build(file, files);
+        return load(file);
+    }
+
+    /**
+     * Test if a tree file exists and was built from the current contents of word files.
+     * @param file the tree file.
+     * @param files the word files.
+     * @return true if the tree is up to date.
+     * @throws IOException if a word file cannot be read.
+     */
+    public static boolean isCurrent(Path file, String... files) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER)
+            return false;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        return header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                && header.getLong(8) == TrieImage.checksum(files);
+    }
+
+    // round a section size up to 8 bytes, see TrieImage
+    // the size of the file of a tree of nodes over words of a length.
+    private static long size(int size, int length, int nodes) {
+        return pad(HEADER) + nodes * PATTERN_WORDS * 8L + 2 * ((nodes * 4L + 7) & ~7L) + size * length * 2L;
+    }
+
+    private static int pad(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int size) {
+        return buffer.duplicate().position(position).limit(position + size).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // #endregion
+}
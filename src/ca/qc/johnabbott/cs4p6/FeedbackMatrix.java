@@ -0,0 +1,195 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * The pattern code of every guess against every answer, see {@link Wordle#score(CharSequence, CharSequence)}.
+ *
+ * Words of up to 5 letters have at most 3^5 = 243 patterns, so each (guess, answer) pair takes one byte. Rows are
+ * guesses and columns answers, so filtering candidates by a guess reads one contiguous row.
+ */
+public class FeedbackMatrix {
+
+    public static final int MAX_LENGTH = 5;
+
+    private static final int MAGIC = 0x5746424D;
+    private static final int VERSION = 1;
+    private static final int HEADER = 4 + 4 + 4 + 4;
+
+    private final String[] words;
+    private final Map<String, Integer> ids;
+    private final ByteBuffer patterns;
+
+    private FeedbackMatrix(String[] words, ByteBuffer patterns) {
+        this.words = words;
+        this.patterns = patterns;
+        this.ids = new HashMap<>();
+        for (int id = 0; id < words.length; id++)
+            ids.put(words[id], id);
+    }
+
+    /**
+     * Build the matrix of the 5-letter words of a lexicon.
+     * @param lexicon the lexicon.
+     * @return the matrix.
+     */
+    public static FeedbackMatrix build(Lexicon lexicon) {
+        return build(lexicon.wordle(MAX_LENGTH, Set.of(), Map.of(), List.of()));
+    }
+
+    /**
+     * Build the matrix of a list of words, one row per guess in parallel.
+     * @param words the words, all of the same length of at most {@link #MAX_LENGTH} letters.
+     * @return the matrix.
+     */
+    public static FeedbackMatrix build(List<String> words) {
+        String[] array = words.toArray(new String[0]);
+        for (String word : array) {
+            if (word.length() > MAX_LENGTH || word.length() != array[0].length())
+                throw new IllegalArgumentException("\"" + word + "\" is not " + array[0].length() + " letters long.");
+        }
+
+        int size = array.length;
+        byte[] patterns = new byte[Math.multiplyExact(size, size)];
+        IntStream.range(0, size).parallel().forEach(guess -> {
+            int[] counts = new int[Alphabets.FULL_ALPHABET.length];
+            for (int answer = 0; answer < size; answer++)
+                patterns[guess * size + answer] = (byte) Wordle.score(array[guess], array[answer], counts);
+        });
+
+        return new FeedbackMatrix(array, ByteBuffer.wrap(patterns));
+    }
+
+    /**
+     * @return the number of words.
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * @param id the id of a word.
+     * @return the word.
+     */
+    public String getWord(int id) {
+        return words[id];
+    }
+
+    /**
+     * @param word a word.
+     * @return the id of the word, or -1 if it is not in the matrix.
+     */
+    public int indexOf(String word) {
+        Integer id = ids.get(word);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Look up the pattern of a guess against an answer.
+     * @param guess the id of the guess.
+     * @param answer the id of the answer.
+     * @return the pattern code.
+     */
+    public int pattern(int guess, int answer) {
+        return patterns.get(guess * words.length + answer) & 0xFF;
+    }
+
+    /**
+     * Keep only the answers that would give a pattern for a guess.
+     * @param candidates the ids of the possible answers, narrowed in place.
+     * @param guess the id of the guess.
+     * @param pattern the pattern code that was seen.
+     * @return the number of candidates left.
+     */
+    public int narrow(BitSet candidates, int guess, int pattern) {
+        int row = guess * words.length;
+        for (int answer = candidates.nextSetBit(0); answer >= 0; answer = candidates.nextSetBit(answer + 1)) {
+            if ((patterns.get(row + answer) & 0xFF) != pattern)
+                candidates.clear(answer);
+        }
+        return candidates.cardinality();
+    }
+
+    /**
+     * Write the matrix to a file that {@link #load(Path)} can map.
+     * @param file the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        int length = words.length == 0 ? 0 : words[0].length();
+        ByteBuffer header = ByteBuffer.allocate(HEADER + words.length * length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(words.length).putInt(length);
+        for (String word : words) {
+            for (int i = 0; i < length; i++)
+                header.putChar(word.charAt(i));
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining())
+                channel.write(header);
+            ByteBuffer body = patterns.duplicate().clear();
+            while (body.hasRemaining())
+                channel.write(body);
+        }
+    }
+
+    // the size of the file of a matrix of words of a length, or -1 if it overflows.
+    private static long size(int size, int length) {
+        try {
+            long words = Math.multiplyExact(Math.multiplyExact((long) size, length), 2);
+            return Math.addExact(HEADER + words, Math.multiplyExact((long) size, size));
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Memory-map a matrix written by {@link #write(Path)}.
+     * @param file the file.
+     * @return the matrix, reading patterns from the mapped file.
+     * @throws IOException if the file cannot be read or is not a matrix.
+     */
+    public static FeedbackMatrix load(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a feedback matrix.");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has unsupported version " + buffer.getInt(4) + ".");
+
+        int size = buffer.getInt(8);
+        int length = buffer.getInt(12);
+        if (size < 0 || length < 0 || buffer.limit() != size(size, length))
+            throw new IOException(file + " is truncated or corrupt.");
+
+        String[] words = new String[size];
+        char[] word = new char[length];
+        int position = HEADER;
+        for (int id = 0; id < size; id++) {
+            for (int i = 0; i < length; i++, position += 2)
+                word[i] = buffer.getChar(position);
+            words[id] = new String(word);
+        }
+
+        ByteBuffer patterns = buffer.duplicate().position(position).limit(position + size * size).slice();
+        return new FeedbackMatrix(words, patterns);
+    }
+}
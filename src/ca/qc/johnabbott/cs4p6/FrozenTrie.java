@@ -0,0 +1,201 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable snapshot of a trie stored in flat arrays, see {@link Trie#freeze()}.
+ *
+ * Nodes are numbered in level order (LOUDS order) with node 0 as the root, so the children of a node are
+ * consecutive and sorted by letter. Rather than a LOUDS bit string with rank/select support, the first child
+ * of every node is stored directly: the children of node i are firstChild[i] up to firstChild[i + 1].
+ *
+ * The arrays are read through buffers, so a snapshot can be backed by heap arrays or by a memory-mapped
+ * {@link TrieImage} file.
+ */
+public class FrozenTrie implements Lexicon {
+
+    private final CharBuffer labels;
+    private final IntBuffer firstChild;
+    private final LongBuffer words;
+
+    FrozenTrie(CharBuffer labels, IntBuffer firstChild, LongBuffer words) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.words = words;
+    }
+
+    /**
+     * Compile a trie into flat arrays, visiting the nodes in level order.
+     * @param root the root of the trie.
+     * @return the snapshot.
+     */
+    static FrozenTrie freeze(Node<Character> root) {
+        List<Node<Character>> nodes = new ArrayList<>();
+        Queue<Node<Character>> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node<Character> node = queue.remove();
+            nodes.add(node);
+
+            Character[] letters = node.getChildren().keySet().toArray(new Character[0]);
+            Arrays.sort(letters);
+            for (Character letter : letters)
+                queue.add(node.getChildren().get(letter));
+        }
+
+        char[] labels = new char[nodes.size()];
+        int[] firstChild = new int[nodes.size() + 1];
+        long[] words = new long[(nodes.size() + Long.SIZE - 1) / Long.SIZE];
+
+        // in level order, the children of node i follow the children of nodes 0 to i - 1
+        int next = 1;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node<Character> node = nodes.get(i);
+            labels[i] = node.getElement();
+            firstChild[i] = next;
+            next += node.getChildren().size();
+            if (node.isWord())
+                words[i / Long.SIZE] |= 1L << i;
+        }
+        firstChild[nodes.size()] = next;
+
+        return new FrozenTrie(CharBuffer.wrap(labels), IntBuffer.wrap(firstChild), LongBuffer.wrap(words));
+    }
+
+    /**
+     * @return the number of nodes in the snapshot.
+     */
+    public int size() {
+        return labels.limit();
+    }
+
+    /**
+     * @return the number of words in the snapshot.
+     */
+    public int getWordCount() {
+        int count = 0;
+        for (int i = 0; i < words.limit(); i++)
+            count += Long.bitCount(words.get(i));
+        return count;
+    }
+
+    /**
+     * @return the distinct letters of the words, sorted.
+     */
+    public char[] getAlphabet() {
+        StringBuilder alphabet = new StringBuilder();
+        for (int node = 1; node < size(); node++) {
+            char letter = labels.get(node);
+            if (alphabet.indexOf(String.valueOf(letter)) < 0)
+                alphabet.append(letter);
+        }
+        char[] sorted = alphabet.toString().toCharArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // the flat arrays, for writing images
+    CharBuffer getLabels() {
+        return labels.duplicate();
+    }
+
+    IntBuffer getFirstChild() {
+        return firstChild.duplicate();
+    }
+
+    LongBuffer getWords() {
+        return words.duplicate();
+    }
+
+    /**
+     * A snapshot cannot be modified.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void add(String word) {
+        throw new UnsupportedOperationException("A frozen trie cannot be modified.");
+    }
+
+    @Override
+    public boolean contains(String word) {
+        int node = 0;
+        for (int i = 0; i < word.length() && node >= 0; i++)
+            node = child(node, word.charAt(i));
+        return node >= 0 && isWord(node);
+    }
+
+    // binary search the sorted children of a node, -1 if there is no child for the letter
+    private int child(int node, char letter) {
+        int low = firstChild.get(node);
+        int high = firstChild.get(node + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels.get(middle) < letter)
+                low = middle + 1;
+            else if (labels.get(middle) > letter)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    private boolean isWord(int node) {
+        return (words.get(node / Long.SIZE) & (1L << node)) != 0;
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+
+        List<String> words = new ArrayList<>();
+        wordle(length, greys, greens, yellows, words::add);
+        return words;
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+
+        WordleQuery query = new WordleQuery(length, greys, greens, yellows);
+        getWords(0, new char[Math.max(length, 0)], 0, 0, action, query);
+    }
+
+    // Walk the snapshot once, applying every constraint as the branch grows.
+    private void getWords(int node, char[] word, int depth, int found, Consumer<String> action, WordleQuery query) {
+
+        // Base case: the branch is the correct length.
+        if (depth == word.length) {
+            if (isWord(node)) {
+                String candidate = new String(word);
+                if (query.accepts(found, candidate))
+                    action.accept(candidate);
+            }
+            return;
+        }
+
+        // Recursive case: visit the children in letter order.
+        int last = firstChild.get(node + 1);
+        for (int child = firstChild.get(node); child < last; child++) {
+            char letter = labels.get(child);
+            if (!query.allows(depth, letter))
+                continue;
+
+            int childFound = query.find(found, letter);
+            if (query.canFinish(depth + 1, childFound)) {
+                word[depth] = letter;
+                getWords(child, word, depth + 1, childFound, action, query);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Suggest the next guess by ranking every allowed guess by the information it is expected to give about the
+ * remaining candidates.
+ *
+ * Guesses are evaluated in parallel on the common fork-join pool, with patterns looked up in a
+ * {@link FeedbackMatrix}. Its words are both the allowed guesses and the possible answers.
+ *
+ * For games of several boards, see {@link MultiWordle}, a guess is ranked by its combined information over the
+ * boards. The answers of the boards are independent, so the information of a guess is the sum of what it gives
+ * on each board.
+ */
+public class GuessAdvisor {
+
+    // 3^5 patterns for words of up to 5 letters
+    private static final int PATTERNS = 243;
+
+    /**
+     * Deadline for {@link #rankUntil(BitSet, int, long)} that evaluates every guess.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    /**
+     * A guess with its score.
+     */
+    public static class Guess {
+        private final String word;
+        private final boolean candidate;
+        private final double entropy;
+        private final double expectedRemaining;
+
+        private Guess(String word, boolean candidate, double entropy, double expectedRemaining) {
+            this.word = word;
+            this.candidate = candidate;
+            this.entropy = entropy;
+            this.expectedRemaining = expectedRemaining;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        /**
+         * @return true if the guess is one of the candidates, so it could win right away. For several boards,
+         * a candidate of any of them.
+         */
+        public boolean isCandidate() {
+            return candidate;
+        }
+
+        /**
+         * @return the expected information gain in bits, summed over the boards.
+         */
+        public double getEntropy() {
+            return entropy;
+        }
+
+        /**
+         * @return the expected number of candidates left after the guess, summed over the boards.
+         */
+        public double getExpectedRemaining() {
+            return expectedRemaining;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%.2f bits, %.1f left)", word, entropy, expectedRemaining);
+        }
+    }
+
+    /**
+     * The information of every allowed guess about the candidates of one board, which can be computed once and
+     * combined with other boards by {@link #rank(List, int)}.
+     */
+    public static final class Scores {
+        private final BitSet candidates;
+        private final double[] entropy;
+        private final double[] expectedRemaining;
+
+        private Scores(BitSet candidates, int guesses) {
+            this.candidates = candidates;
+            this.entropy = new double[guesses];
+            this.expectedRemaining = new double[guesses];
+        }
+    }
+
+    // best first: most information, then guesses that could win, then alphabetical
+    private static final Comparator<Guess> BEST = Comparator.comparingDouble(Guess::getEntropy).reversed()
+            .thenComparing(Guess::isCandidate, Comparator.reverseOrder())
+            .thenComparing(Guess::getWord);
+
+    private final FeedbackMatrix matrix;
+
+    /**
+     * Create an advisor.
+     * @param matrix the patterns of the allowed guesses against the possible answers.
+     */
+    public GuessAdvisor(FeedbackMatrix matrix) {
+        this.matrix = matrix;
+    }
+
+    /**
+     * Rank every allowed guess.
+     * @param candidates the remaining possible answers, words that are not in the matrix are ignored.
+     * @param k the number of guesses to return.
+     * @return the best k guesses, best first.
+     */
+    public List<Guess> rank(Collection<String> candidates, int k) {
+        return rankUntil(ids(candidates), k, NO_DEADLINE);
+    }
+
+    /**
+     * Rank as many allowed guesses as possible within a time budget. The candidates themselves are evaluated
+     * first, since they are usually good guesses and can win the game.
+     * @param candidates the remaining possible answers, words that are not in the matrix are ignored.
+     * @param k the number of guesses to return.
+     * @param budgetMillis the time budget in milliseconds.
+     * @return the best k guesses found, best first.
+     */
+    public List<Guess> rank(Collection<String> candidates, int k, long budgetMillis) {
+        long deadline = System.nanoTime() + Math.multiplyExact(budgetMillis, 1_000_000L);
+        return rankUntil(ids(candidates), k, deadline);
+    }
+
+    private BitSet ids(Collection<String> candidates) {
+        BitSet ids = new BitSet(matrix.size());
+        for (String candidate : candidates) {
+            int id = matrix.indexOf(candidate);
+            if (id >= 0)
+                ids.set(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Rank the allowed guesses until a deadline.
+     * @param candidates the ids of the remaining possible answers.
+     * @param k the number of guesses to return.
+     * @param deadline the {@link System#nanoTime()} to stop evaluating at.
+     * @return the best k guesses found, best first.
+     */
+    public List<Guess> rankUntil(BitSet candidates, int k, long deadline) {
+        return rankUntil(List.of(candidates), k, deadline);
+    }
+
+    /**
+     * Rank the allowed guesses for several boards until a deadline, by their information summed over the boards.
+     * @param boards the ids of the remaining possible answers of each board, boards without any are ignored.
+     * @param k the number of guesses to return.
+     * @param deadline the {@link System#nanoTime()} to stop evaluating at.
+     * @return the best k guesses found, best first.
+     */
+    public List<Guess> rankUntil(List<BitSet> boards, int k, long deadline) {
+        BitSet union = new BitSet(matrix.size());
+        List<int[]> answers = new ArrayList<>();
+        for (BitSet candidates : boards) {
+            if (!candidates.isEmpty()) {
+                union.or(candidates);
+                answers.add(candidates.stream().toArray());
+            }
+        }
+        if (answers.isEmpty())
+            return List.of();
+        int[][] byBoard = answers.toArray(new int[0][]);
+
+        // the candidates of any board first, then every other guess
+        int[] candidates = union.stream().toArray();
+        int[] others = IntStream.range(0, matrix.size()).filter(id -> !union.get(id)).toArray();
+        Guess[] scored = new Guess[matrix.size()];
+        for (int[] guesses : List.of(candidates, others)) {
+            IntStream.of(guesses).parallel().forEach(guess -> {
+                if (deadline == NO_DEADLINE || System.nanoTime() - deadline < 0)
+                    scored[guess] = evaluate(guess, byBoard, union.get(guess));
+            });
+        }
+
+        List<Guess> best = new ArrayList<>();
+        Arrays.stream(scored).filter(Objects::nonNull).sorted(BEST).limit(k).forEach(best::add);
+        return best;
+    }
+
+    /**
+     * Score every allowed guess against the candidates of one board.
+     * @param candidates the ids of the remaining possible answers, not modified afterwards.
+     * @return the scores.
+     */
+    public Scores score(BitSet candidates) {
+        Scores scores = new Scores(candidates, matrix.size());
+        int[][] answers = { candidates.stream().toArray() };
+        IntStream.range(0, matrix.size()).parallel().forEach(guess -> {
+            Guess scored = evaluate(guess, answers, false);
+            scores.entropy[guess] = scored.entropy;
+            scores.expectedRemaining[guess] = scored.expectedRemaining;
+        });
+        return scores;
+    }
+
+    /**
+     * Rank every allowed guess by its information summed over boards scored beforehand, without going through
+     * their candidates again.
+     * @param boards the scores of each board.
+     * @param k the number of guesses to return.
+     * @return the best k guesses, best first.
+     */
+    public List<Guess> rank(List<Scores> boards, int k) {
+        if (boards.isEmpty())
+            return List.of();
+
+        Guess[] scored = new Guess[matrix.size()];
+        IntStream.range(0, matrix.size()).parallel().forEach(guess -> {
+            boolean candidate = false;
+            double entropy = 0;
+            double expectedRemaining = 0;
+            for (Scores board : boards) {
+                candidate |= board.candidates.get(guess);
+                entropy += board.entropy[guess];
+                expectedRemaining += board.expectedRemaining[guess];
+            }
+            scored[guess] = new Guess(matrix.getWord(guess), candidate, entropy, expectedRemaining);
+        });
+
+        List<Guess> best = new ArrayList<>();
+        Arrays.stream(scored).sorted(BEST).limit(k).forEach(best::add);
+        return best;
+    }
+
+    // split the answers of each board by the pattern the guess would show.
+    private Guess evaluate(int guess, int[][] boards, boolean candidate) {
+        int[] counts = new int[PATTERNS];
+        double entropy = 0;
+        double expectedRemaining = 0;
+        for (int[] answers : boards) {
+            Arrays.fill(counts, 0);
+            for (int answer : answers)
+                counts[matrix.pattern(guess, answer)]++;
+
+            double total = answers.length;
+            for (int count : counts) {
+                if (count > 0) {
+                    double p = count / total;
+                    entropy -= p * Math.log(p) / Math.log(2);
+                    expectedRemaining += p * count;
+                }
+            }
+        }
+        return new Guess(matrix.getWord(guess), candidate, entropy, expectedRemaining);
+    }
+}
@@ -0,0 +1,137 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values, such as latencies in nanoseconds, with log-linear buckets in the style of
+ * HdrHistogram: every power of two is split into 8 buckets, so a value is known within 12.5% whatever its
+ * magnitude, in a fixed 496 counters. Values below 8 are counted exactly.
+ *
+ * Values can be recorded from many threads at once without locking.
+ */
+public class LatencyHistogram {
+
+    // 2^SUB_BITS buckets per power of two
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    /**
+     * Create an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    // the bucket of a value: its power of two, then the 3 bits after its highest one
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // the largest value counted in a bucket
+    private static long highest(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Record a value, negative values count as 0.
+     * @param value the value.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * @return the number of values recorded.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the largest value recorded, 0 if there is none.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean of the values recorded, 0 if there is none.
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Get a percentile, as the largest value of its bucket, so it is never understated.
+     * @param percentile the percentile, between 0 and 100.
+     * @return the value at the percentile, 0 if there is none.
+     */
+    public long getValueAt(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+
+        long n = count.get();
+        if (n == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highest(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * @return a copy of the histogram. Values recorded during the copy may be only partly included.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucket = counts.get(i);
+            copy.counts.set(i, bucket);
+            n += bucket;
+        }
+        copy.count.set(n);
+        copy.total.set(total.get());
+        copy.max.set(max.get());
+        return copy;
+    }
+
+    /**
+     * Forget every value recorded.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+}
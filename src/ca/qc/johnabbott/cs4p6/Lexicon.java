@@ -1,8 +1,13 @@
 package ca.qc.johnabbott.cs4p6;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Abstract representation of a lexicon.
@@ -17,6 +22,14 @@ public interface Lexicon {
      */
     void add(String word);
 
+    /**
+     * Add many words at once, in any order. By default each word is added in turn.
+     * @param words the words to add to the lexicon.
+     */
+    default void addAll(Collection<String> words) {
+        for (String word : words)
+            add(word);
+    }
 
     /**
      * Test if a word is in the lexicon.
@@ -26,7 +39,8 @@ public interface Lexicon {
     boolean contains(String word);
 
     /**
-     * Generate "wordle" solutions
+     * Generate "wordle" solutions. Queries never modify the lexicon, so a loaded lexicon can answer queries
+     * for any number of games, including from several threads at once.
      * @param length The word length.
      * @param greys The characters that should not appear in the word.
      * @param greens The characters correct with their position.
@@ -35,4 +49,75 @@ public interface Lexicon {
      */
     List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows);
 
+    /**
+     * Generate "wordle" solutions, passing each one to an action as it is found instead of collecting them.
+     * @param length The word length.
+     * @param greys The characters that should not appear in the word.
+     * @param greens The characters correct with their position.
+     * @param yellows The characters that are correct but with unknown position.
+     * @param action The action receiving each solution.
+     */
+    default void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+        wordle(length, greys, greens, yellows).forEach(action);
+    }
+
+    /**
+     * Generate "wordle" solutions for the full constraint of a game, see {@link Wordle.Result#getConstraint()}.
+     * @param constraint The constraint.
+     * @return the words that could still be the answer.
+     */
+    default List<String> wordle(Constraint constraint) {
+        List<String> words = new ArrayList<>();
+        wordle(constraint, words::add);
+        return words;
+    }
+
+    /**
+     * Generate "wordle" solutions for the full constraint of a game, passing each one to an action as it is found.
+     * By default the greys, greens and yellows of the constraint are queried and the results checked against the
+     * rest of the constraint.
+     * @param constraint The constraint.
+     * @param action The action receiving each solution.
+     */
+    default void wordle(Constraint constraint, Consumer<String> action) {
+        wordle(constraint.getLength(), constraint.getGreys(), constraint.getGreens(), constraint.getYellows(), word -> {
+            if (constraint.matches(word))
+                action.accept(word);
+        });
+    }
+
+    /**
+     * Stream the "wordle" solutions for the full constraint of a game. Lexicons that can find the solutions one at
+     * a time do so as the stream is consumed, so a limit on the stream also limits the search. By default all the
+     * solutions are found first.
+     * @param constraint The constraint.
+     * @return the words that could still be the answer.
+     */
+    default Stream<String> wordleStream(Constraint constraint) {
+        return wordle(constraint).stream();
+    }
+
+    /**
+     * Pick a word of a length uniformly at random.
+     * @param length The word length.
+     * @param random The source of randomness.
+     * @return the word, or null if the lexicon has no word of that length.
+     */
+    default String sample(int length, Random random) {
+        List<String> words = wordle(length, Set.of(), Map.of(), List.of());
+        return words.isEmpty() ? null : words.get(random.nextInt(words.size()));
+    }
+
+    /**
+     * Count the "wordle" solutions for the full constraint of a game, without collecting them.
+     * @param constraint The constraint.
+     * @return the number of words that could still be the answer.
+     */
+    default long countWordle(Constraint constraint) {
+        long[] count = new long[1];
+        wordle(constraint, word -> count[0]++);
+        return count[0];
+    }
+
 }
@@ -0,0 +1,64 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Console report of the node count and heap of a {@link Trie} and a {@link Dawg} holding the same words.
+ *
+ * Usage: LexiconFootprint [word files...], by default the full lexicon and the Canadian aspell lists that are
+ * present in the working directory.
+ */
+public class LexiconFootprint {
+
+    public static void main(String[] args) throws IOException {
+        List<String> files = new ArrayList<>(List.of(args));
+        if (files.isEmpty()) {
+            files.add(Alphabets.LEXICON_FULL);
+            for (String file : List.of(Alphabets.LEXICON_CANADIAN_60, Alphabets.LEXICON_CANADIAN_80)) {
+                if (Files.exists(Paths.get(file)))
+                    files.add(file);
+                else
+                    System.out.println(file + " not found, see http://wordlist.aspell.net/");
+            }
+        }
+
+        for (String file : files) {
+            List<String> words = new ArrayList<>();
+            LexiconLoader.forEachWord(words::add, file);
+            System.out.printf("%s: %d words\n", file, words.size());
+
+            long before = usedHeap();
+            Trie trie = new Trie();
+            trie.addAll(words);
+            long after = usedHeap();
+            report("trie", trie.freeze().size(), after - before);
+            Reference.reachabilityFence(trie);
+            trie = null;
+
+            before = usedHeap();
+            Dawg dawg = new Dawg();
+            dawg.addAll(words);
+            after = usedHeap();
+            report("dawg", dawg.size(), after - before);
+            Reference.reachabilityFence(dawg);
+        }
+    }
+
+    private static void report(String name, int nodes, long heap) {
+        System.out.printf("  %-6s %9d nodes %8.1f MB %6.1f bytes/node\n", name, nodes, heap / 1024.0 / 1024.0,
+                (double) heap / nodes);
+    }
+
+    // heap in use after collecting garbage
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,267 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A lexicon loaded from word files that can be reloaded while it is being queried.
+ *
+ * Each load builds a complete new lexicon, the snapshot, away from the readers and then publishes it with a
+ * single atomic reference swap, read-copy-update style. A snapshot is never modified once published. Each query
+ * reads the current snapshot once and runs entirely on it, so queries in progress during a reload finish on the
+ * old snapshot, new ones start on the new snapshot, and no query ever waits for a reload. Old snapshots are
+ * reclaimed by the garbage collector once their last query returns.
+ *
+ * Consecutive queries may see different snapshots. Callers that need several queries to agree, such as a count
+ * and a listing, should query one snapshot from {@link #get()}.
+ *
+ * Reloads run on a background thread, on request with {@link #reloadAsync()} or when the files change with
+ * {@link #watch(long)}. A reload that fails leaves the current snapshot in place.
+ *
+ * Files are read into memory rather than mapped, and a load fails if their modification time or size changed
+ * while they were read, so a file rewritten during a load cannot crash the reloader. A rewrite that keeps both
+ * can still be missed, so writers should replace a word file with an atomic rename, e.g.
+ * {@code Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE)}, instead of writing it in place.
+ */
+public class LexiconHolder implements Lexicon, AutoCloseable {
+
+    // a published lexicon, with the state of the files it was loaded from.
+    private static class Snapshot {
+        private final Lexicon lexicon;
+        private final List<Object> stamps;
+        private final long version;
+
+        private Snapshot(Lexicon lexicon, List<Object> stamps, long version) {
+            this.lexicon = lexicon;
+            this.stamps = stamps;
+            this.version = version;
+        }
+    }
+
+    private final Supplier<Lexicon> factory;
+    private final String[] files;
+    private final AtomicReference<Snapshot> current;
+
+    // reloads, one at a time, and the file watch
+    private final ScheduledExecutorService reloader;
+    private final Object reloading = new Object();
+    private final AtomicLong versions = new AtomicLong();
+    private final LongAdder failures = new LongAdder();
+    private ScheduledFuture<?> watch;
+
+    /**
+     * Load the files into a first snapshot.
+     * @param factory a supplier of empty lexicons, one per snapshot, e.g. Trie::new.
+     * @param files the word files, e.g. {@link Alphabets#LEXICON_FULL}.
+     * @throws IOException if a file cannot be read.
+     */
+    public LexiconHolder(Supplier<Lexicon> factory, String... files) throws IOException {
+        if (files.length == 0)
+            throw new IllegalArgumentException("There must be at least one word file.");
+
+        this.factory = factory;
+        this.files = files.clone();
+        this.current = new AtomicReference<>(load());
+        this.reloader = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "lexicon-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the current snapshot, which is never modified.
+     */
+    public Lexicon get() {
+        return current.get().lexicon;
+    }
+
+    /**
+     * @return the number of the current snapshot, 1 for the first load and incremented by each reload.
+     */
+    public long getVersion() {
+        return current.get().version;
+    }
+
+    /**
+     * @return the number of reloads that failed.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    // build a snapshot from copies of the files, failing if they changed while they were read.
+    private Snapshot load() throws IOException {
+        List<Object> stamps = stamps();
+        Lexicon lexicon = Objects.requireNonNull(factory.get(), "The factory returned no lexicon.");
+        LexiconLoader.read(lexicon, files);
+        if (!stamps().equals(stamps))
+            throw new IOException("The word files changed while they were read.");
+        return new Snapshot(lexicon, stamps, versions.incrementAndGet());
+    }
+
+    // the modification time and size of each file.
+    private List<Object> stamps() throws IOException {
+        List<Object> stamps = new ArrayList<>();
+        for (String file : files) {
+            Path path = Path.of(file);
+            stamps.add(Files.getLastModifiedTime(path));
+            stamps.add(Files.size(path));
+        }
+        return stamps;
+    }
+
+    /**
+     * Load the files into a new snapshot and publish it, on the calling thread. Queries continue on the current
+     * snapshot until then. Any failure, an error included, is counted by {@link #getFailures()}.
+     * @return the new snapshot.
+     * @throws IOException if a file cannot be read or changed while it was read, the current snapshot is kept.
+     */
+    public Lexicon reload() throws IOException {
+        synchronized (reloading) {
+            Snapshot snapshot;
+            try {
+                snapshot = load();
+            } catch (IOException | RuntimeException | Error e) {
+                failures.increment();
+                throw e;
+            }
+            current.set(snapshot);
+            return snapshot.lexicon;
+        }
+    }
+
+    /**
+     * Reload on the background thread.
+     * @return the new snapshot once it is published, or the failure of the reload.
+     */
+    public CompletableFuture<Lexicon> reloadAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return reload();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, reloader);
+    }
+
+    /**
+     * Check the files periodically on the background thread, and reload once their modification time or size
+     * has changed and then stayed the same for two checks in a row, so a file is not read while it is still
+     * being written. A failed reload is tried again at the next check. Writers should still replace the files
+     * with an atomic rename, see above.
+     * @param periodMillis the time between checks, in milliseconds.
+     */
+    public synchronized void watch(long periodMillis) {
+        if (periodMillis <= 0)
+            throw new IllegalArgumentException("The period must be positive.");
+        if (watch != null)
+            watch.cancel(false);
+
+        watch = reloader.scheduleWithFixedDelay(new Watch(), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // one check of the files, remembering their state at the previous check.
+    private class Watch implements Runnable {
+        private List<Object> previous;
+
+        @Override
+        public void run() {
+            try {
+                List<Object> stamps = stamps();
+                boolean stable = stamps.equals(previous);
+                previous = stamps;
+                if (stable && !stamps.equals(current.get().stamps))
+                    reload();
+            } catch (IOException | RuntimeException | Error e) {
+                // counted by reload(), or a file is missing for now: keep the current snapshot. An error must not
+                // escape either, or the executor would silently stop the watch.
+            }
+        }
+    }
+
+    /**
+     * Stop watching the files and reloading in the background. The current snapshot can still be queried.
+     */
+    @Override
+    public synchronized void close() {
+        if (watch != null)
+            watch.cancel(false);
+        reloader.shutdown();
+    }
+
+    /**
+     * Snapshots are never modified, change the files and reload instead.
+     * @param word the word.
+     */
+    @Override
+    public void add(String word) {
+        throw new UnsupportedOperationException("Snapshots cannot be modified, change the word files and reload.");
+    }
+
+    // #region Queries
+    // Every query runs entirely on the snapshot current when it starts.
+
+    @Override
+    public boolean contains(String word) {
+        return get().contains(word);
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+        return get().wordle(length, greys, greens, yellows);
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+        get().wordle(length, greys, greens, yellows, action);
+    }
+
+    @Override
+    public List<String> wordle(Constraint constraint) {
+        return get().wordle(constraint);
+    }
+
+    @Override
+    public void wordle(Constraint constraint, Consumer<String> action) {
+        get().wordle(constraint, action);
+    }
+
+    @Override
+    public Stream<String> wordleStream(Constraint constraint) {
+        return get().wordleStream(constraint);
+    }
+
+    @Override
+    public String sample(int length, Random random) {
+        return get().sample(length, random);
+    }
+
+    @Override
+    public long countWordle(Constraint constraint) {
+        return get().countWordle(constraint);
+    }
+
+    // #endregion
+}
@@ -0,0 +1,115 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Load word files into a lexicon.
+ *
+ * Files are memory-mapped and split into words at the byte level on whitespace, like {@link java.util.Scanner#next()}
+ * does, without regular expressions or a reader. The words of all the files are added at once with
+ * {@link Lexicon#addAll(java.util.Collection)}, so a lexicon can build from them as a whole: a {@link Dawg} sorts
+ * them first and a {@link Trie} builds its subtries in parallel.
+ */
+public class LexiconLoader {
+
+    // hide the constructor --> utility class
+    private LexiconLoader() {};
+
+    /**
+     * Add every word of one or more files to a lexicon.
+     * @param lexicon the lexicon.
+     * @param files the word files, e.g. {@link Alphabets#LEXICON_FULL}.
+     * @return the number of words read.
+     * @throws IOException if a file cannot be read.
+     */
+    public static int load(Lexicon lexicon, String... files) throws IOException {
+        List<String> words = new ArrayList<>();
+        int count = forEachWord(words::add, files);
+        lexicon.addAll(words);
+        return count;
+    }
+
+    /**
+     * Add every word of one or more files to a lexicon like {@link #load(Lexicon, String...)}, but from a copy of
+     * each file read into memory instead of a mapping. A mapped file that is truncated while it is read faults
+     * the reading thread with an {@link InternalError}, a copy cannot, so files that may be rewritten during the
+     * load should be read this way.
+     * @param lexicon the lexicon.
+     * @param files the word files.
+     * @return the number of words read.
+     * @throws IOException if a file cannot be read.
+     */
+    public static int read(Lexicon lexicon, String... files) throws IOException {
+        List<String> words = new ArrayList<>();
+        int count = 0;
+        for (String file : files)
+            count += forEachWord(words::add, ByteBuffer.wrap(Files.readAllBytes(Path.of(file))));
+        lexicon.addAll(words);
+        return count;
+    }
+
+    /**
+     * Pass every word of one or more files to an action, in file order.
+     * @param action the action receiving each word.
+     * @param files the word files.
+     * @return the number of words read.
+     * @throws IOException if a file cannot be read.
+     */
+    public static int forEachWord(Consumer<String> action, String... files) throws IOException {
+        int count = 0;
+        for (String file : files)
+            count += forEachWord(action, Path.of(file));
+        return count;
+    }
+
+    private static int forEachWord(Consumer<String> action, Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to map.");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return forEachWord(action, buffer);
+    }
+
+    private static int forEachWord(Consumer<String> action, ByteBuffer buffer) {
+        // gather the bytes of the current word, growing for long words
+        byte[] word = new byte[64];
+        int length = 0;
+        int count = 0;
+
+        int size = buffer.limit();
+        for (int i = 0; i <= size; i++) {
+            byte b = i < size ? buffer.get(i) : (byte) ' ';
+            if (isWhitespace(b)) {
+                if (length > 0) {
+                    action.accept(new String(word, 0, length, StandardCharsets.UTF_8));
+                    count++;
+                    length = 0;
+                }
+            }
+            else {
+                if (length == word.length)
+                    word = Arrays.copyOf(word, length * 2);
+                word[length++] = b;
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,186 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stress check of {@link LexiconHolder}: readers query the holder without pause while the word file alternates
+ * between two versions and is reloaded over and over, then once more through the file watch. Last, the file is
+ * rewritten in place at random times while the watch keeps checking it, so it often changes while the watch is
+ * reading it. The watch must keep running through the failed reads and pick up the last version.
+ *
+ * The second version adds a marker word. Every snapshot a reader sees must be one version or the other as a
+ * whole: its count of 5 letter words, its contains() of the marker and the wordle() solutions around the marker
+ * must all agree, and every word of the first version must be found. Any disagreement is reported and fails the
+ * run. The latencies of the readers show whether they ever waited for a reload.
+ *
+ * Usage: LexiconReloadStress [readers] [reloads]
+ */
+public class LexiconReloadStress {
+
+    public static final int DEFAULT_READERS = 4;
+    public static final int DEFAULT_RELOADS = 20;
+
+    private static final int LENGTH = 5;
+    private static final String MARKER = "qxqxq";
+    private static final long WATCH_MILLIS = 50;
+    private static final long WATCH_TIMEOUT_MILLIS = 10_000;
+    private static final long REWRITE_MILLIS = 3_000;
+
+    // what the readers saw
+    private static class Reads {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder inconsistent = new LongAdder();
+        private final Set<Long> versions = new HashSet<>();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int readers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_READERS;
+        int reloads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RELOADS;
+
+        List<String> words = new ArrayList<>();
+        LexiconLoader.forEachWord(words::add, Alphabets.LEXICON_FULL);
+        List<String> marked = new ArrayList<>(words);
+        marked.add(MARKER);
+
+        Path file = Files.createTempFile("lexicon", ".txt");
+        try {
+            Files.write(file, words, StandardCharsets.UTF_8);
+            try (LexiconHolder holder = new LexiconHolder(Trie::new, file.toString())) {
+                run(holder, file, words, marked, readers, reloads);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void run(LexiconHolder holder, Path file, List<String> words, List<String> marked, int readers,
+            int reloads) throws IOException, InterruptedException {
+
+        long expected = holder.countWordle(new Constraint(LENGTH));
+        String[] probes = words.toArray(new String[0]);
+        Reads reads = new Reads();
+        AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            long seed = i;
+            futures.add(executor.submit(() -> read(holder, probes, expected, reads, done, new Random(seed))));
+        }
+
+        // reload the two versions in turn, then let the watch pick up a last change
+        long start = System.nanoTime();
+        long reloading = 0;
+        for (int i = 1; i <= reloads; i++) {
+            Files.write(file, i % 2 == 1 ? marked : words, StandardCharsets.UTF_8);
+            long reload = System.nanoTime();
+            holder.reload();
+            reloading += System.nanoTime() - reload;
+        }
+
+        long version = holder.getVersion();
+        holder.watch(WATCH_MILLIS);
+        Files.write(file, reloads % 2 == 0 ? marked : words, StandardCharsets.UTF_8);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WATCH_TIMEOUT_MILLIS);
+        while (holder.getVersion() == version && System.nanoTime() - deadline < 0)
+            Thread.sleep(WATCH_MILLIS);
+        boolean watched = holder.getVersion() > version;
+
+        // rewrite in place under the watch, then write the version the holder does not have and wait for it
+        boolean before = holder.get().contains(MARKER);
+        version = holder.getVersion();
+        long failures = holder.getFailures();
+        int rewrites = rewrite(file, words, marked);
+        Files.write(file, before ? words : marked, StandardCharsets.UTF_8);
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WATCH_TIMEOUT_MILLIS);
+        while (holder.get().contains(MARKER) == before && System.nanoTime() - deadline < 0)
+            Thread.sleep(WATCH_MILLIS);
+        boolean settled = holder.get().contains(MARKER) != before;
+
+        done.set(true);
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        LatencyHistogram latencies = reads.latencies;
+        System.out.printf("%d readers, %d reloads (%.1f ms each), watch reload %s, %d cores\n", readers, reloads,
+                reloading / 1e6 / Math.max(reloads, 1), watched ? "seen" : "NOT seen",
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%d reads, %.0f reads/s, %d snapshots seen, %d inconsistent\n", reads.reads.sum(),
+                reads.reads.sum() / elapsed, reads.versions.size(), reads.inconsistent.sum());
+        System.out.printf("read p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us\n",
+                latencies.getValueAt(50) / 1e3, latencies.getValueAt(99) / 1e3, latencies.getValueAt(99.9) / 1e3,
+                latencies.getMax() / 1e3);
+        System.out.printf("%d rewrites in place under the watch, %d snapshots and %d failed reloads, last version %s\n",
+                rewrites, holder.getVersion() - version, holder.getFailures() - failures,
+                settled ? "seen" : "NOT seen");
+
+        if (reads.inconsistent.sum() > 0 || !watched || !settled)
+            throw new IllegalStateException("The stress check failed.");
+    }
+
+    // rewrite the file in place with each version in turn for a while, without waiting for the watch.
+    private static int rewrite(Path file, List<String> words, List<String> marked)
+            throws IOException, InterruptedException {
+        Random random = new Random();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(REWRITE_MILLIS);
+        int rewrites = 0;
+        while (System.nanoTime() - deadline < 0) {
+            Files.write(file, rewrites % 2 == 0 ? marked : words, StandardCharsets.UTF_8);
+            rewrites++;
+            Thread.sleep(random.nextInt((int) (2 * WATCH_MILLIS)));
+        }
+        return rewrites;
+    }
+
+    // query the holder until done, checking each snapshot is one of the two versions as a whole.
+    private static void read(LexiconHolder holder, String[] probes, long expected, Reads reads, AtomicBoolean done,
+            Random random) {
+        Set<Long> versions = new HashSet<>();
+        while (!done.get()) {
+            long start = System.nanoTime();
+
+            // a word of both versions, through the holder
+            boolean found = holder.contains(probes[random.nextInt(probes.length)]);
+
+            // three queries on one snapshot
+            Lexicon snapshot = holder.get();
+            boolean marked = snapshot.contains(MARKER);
+            long count = snapshot.countWordle(new Constraint(LENGTH));
+            List<String> around = snapshot.wordle(LENGTH, Set.of(), Map.of(0, 'q', 1, 'x'), List.of());
+
+            reads.latencies.record(System.nanoTime() - start);
+            reads.reads.increment();
+            if (!found || count != expected + (marked ? 1 : 0) || around.contains(MARKER) != marked)
+                reads.inconsistent.increment();
+            versions.add(holder.getVersion());
+        }
+
+        synchronized (reads.versions) {
+            reads.versions.addAll(versions);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ca.qc.johnabbott.cs4p6;
+
+/**
+ * Select a lexicon implementation by name, e.g. from the command line.
+ */
+public class Lexicons {
+
+    // hide the constructor --> utility class
+    private Lexicons() {};
+
+    public static final String TRIE = "trie";
+    public static final String ARRAY_TRIE = "array-trie";
+    public static final String BIT_PARALLEL = "bit-parallel";
+    // takes its words in sorted order, load it with LexiconLoader or Dawg.addAll()
+    public static final String DAWG = "dawg";
+
+    // prefix wrapping an implementation in a CachingLexicon, e.g. "cached-trie"
+    public static final String CACHED = "cached-";
+
+    // prefix wrapping an implementation in a MeteredLexicon, e.g. "metered-dawg"
+    public static final String METERED = "metered-";
+
+    /**
+     * Create an empty lexicon.
+     * @param name the name of the implementation, prefixed with {@link #CACHED} to cache its queries or
+     * {@link #METERED} to record them.
+     * @return the lexicon.
+     */
+    public static Lexicon create(String name) {
+        if (name.startsWith(CACHED))
+            return new CachingLexicon(create(name.substring(CACHED.length())));
+        if (name.startsWith(METERED))
+            return new MeteredLexicon(create(name.substring(METERED.length())));
+
+        switch (name) {
+            case TRIE:
+                return new Trie();
+            case ARRAY_TRIE:
+                return new ArrayTrie();
+            case BIT_PARALLEL:
+                return new BitParallelLexicon();
+            case DAWG:
+                return new Dawg();
+            default:
+                throw new IllegalArgumentException("Unknown lexicon \"" + name + "\".");
+        }
+    }
+
+    /**
+     * Create an empty lexicon, using the name given as the first command line argument if there is one.
+     * @param args the command line arguments.
+     * @return the lexicon, a {@link Trie} by default.
+     */
+    public static Lexicon fromArgs(String[] args) {
+        return create(args.length > 0 ? args[0] : TRIE);
+    }
+}
@@ -1,8 +1,6 @@
 package ca.qc.johnabbott.cs4p6;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.List;
+import java.io.IOException;
 import java.util.Scanner;
 
 public class Main {
@@ -11,13 +9,11 @@ public class Main {
 
         String wordsFile = Alphabets.LEXICON_FULL;
 
-        Lexicon lexicon = new Trie();
+        Lexicon lexicon = Lexicons.fromArgs(args);
 
         try {
-            Scanner scanner = new Scanner(new FileReader(wordsFile));
-            while (scanner.hasNext())
-                lexicon.add(scanner.next());
-        } catch (FileNotFoundException e) {
+            LexiconLoader.load(lexicon, wordsFile);
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
@@ -0,0 +1,212 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Decorator recording the latency and candidates of the queries of another lexicon, whatever its implementation.
+ *
+ * Unlike {@link Metrics}, which only the trie feeds and only when enabled at startup, it measures any lexicon it
+ * wraps, but only from the outside: the calls, the candidates they return and their latencies, not the nodes they
+ * visit. Calls are recorded by {@link Metrics.Operation}. The wordle() queries of every form count as WORDLE,
+ * and each solution pulled from a {@link #wordleStream(Constraint)} as STREAM. The latency of a query passing its
+ * solutions to an action includes the action.
+ */
+public class MeteredLexicon implements Lexicon {
+
+    private static final Metrics.Operation[] OPERATIONS = Metrics.Operation.values();
+
+    private final Lexicon lexicon;
+
+    private final LongAdder[] calls = new LongAdder[OPERATIONS.length];
+    private final LongAdder[] candidates = new LongAdder[OPERATIONS.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+
+    /**
+     * Record the queries of a lexicon.
+     * @param lexicon the lexicon.
+     */
+    public MeteredLexicon(Lexicon lexicon) {
+        this.lexicon = lexicon;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            calls[i] = new LongAdder();
+            candidates[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    // add a call that started at a System.nanoTime().
+    private void record(Metrics.Operation operation, long start, long found) {
+        long latency = System.nanoTime() - start;
+        int i = operation.ordinal();
+        calls[i].increment();
+        candidates[i].add(found);
+        latencies[i].record(latency);
+    }
+
+    @Override
+    public void add(String word) {
+        lexicon.add(word);
+    }
+
+    @Override
+    public void addAll(Collection<String> words) {
+        lexicon.addAll(words);
+    }
+
+    // #region Queries
+
+    @Override
+    public boolean contains(String word) {
+        long start = System.nanoTime();
+        boolean found = lexicon.contains(word);
+        record(Metrics.Operation.CONTAINS, start, found ? 1 : 0);
+        return found;
+    }
+
+    @Override
+    public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
+            List<Character> yellows) {
+        long start = System.nanoTime();
+        List<String> words = lexicon.wordle(length, greys, greens, yellows);
+        record(Metrics.Operation.WORDLE, start, words.size());
+        return words;
+    }
+
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+        long[] found = new long[1];
+        long start = System.nanoTime();
+        lexicon.wordle(length, greys, greens, yellows, word -> {
+            found[0]++;
+            action.accept(word);
+        });
+        record(Metrics.Operation.WORDLE, start, found[0]);
+    }
+
+    @Override
+    public List<String> wordle(Constraint constraint) {
+        long start = System.nanoTime();
+        List<String> words = lexicon.wordle(constraint);
+        record(Metrics.Operation.WORDLE, start, words.size());
+        return words;
+    }
+
+    @Override
+    public void wordle(Constraint constraint, Consumer<String> action) {
+        long[] found = new long[1];
+        long start = System.nanoTime();
+        lexicon.wordle(constraint, word -> {
+            found[0]++;
+            action.accept(word);
+        });
+        record(Metrics.Operation.WORDLE, start, found[0]);
+    }
+
+    // Pull the solutions one at a time from the stream of the lexicon, timing each
+    // pull without the work done on the solution downstream.
+    @Override
+    public Stream<String> wordleStream(Constraint constraint) {
+        Stream<String> words = lexicon.wordleStream(constraint);
+        Spliterator<String> source = words.spliterator();
+        Spliterator<String> metered = new Spliterators.AbstractSpliterator<String>(source.estimateSize(),
+                source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED)) {
+            @Override
+            public boolean tryAdvance(Consumer<? super String> action) {
+                String[] word = new String[1];
+                long start = System.nanoTime();
+                boolean found = source.tryAdvance(next -> word[0] = next);
+                record(Metrics.Operation.STREAM, start, found ? 1 : 0);
+                if (found)
+                    action.accept(word[0]);
+                return found;
+            }
+        };
+        return StreamSupport.stream(metered, false).onClose(words::close);
+    }
+
+    @Override
+    public String sample(int length, Random random) {
+        long start = System.nanoTime();
+        String word = lexicon.sample(length, random);
+        record(Metrics.Operation.SAMPLE, start, word == null ? 0 : 1);
+        return word;
+    }
+
+    @Override
+    public long countWordle(Constraint constraint) {
+        long start = System.nanoTime();
+        long count = lexicon.countWordle(constraint);
+        record(Metrics.Operation.COUNT, start, count);
+        return count;
+    }
+
+    // #endregion
+
+    /**
+     * @param operation the operation.
+     * @return the number of its calls.
+     */
+    public long getCalls(Metrics.Operation operation) {
+        return calls[operation.ordinal()].sum();
+    }
+
+    /**
+     * @param operation the operation.
+     * @return the number of candidates its calls returned.
+     */
+    public long getCandidates(Metrics.Operation operation) {
+        return candidates[operation.ordinal()].sum();
+    }
+
+    /**
+     * @param operation the operation.
+     * @return a copy of its latencies in nanoseconds.
+     */
+    public LatencyHistogram getLatency(Metrics.Operation operation) {
+        return latencies[operation.ordinal()].copy();
+    }
+
+    /**
+     * Forget the calls recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            calls[i].reset();
+            candidates[i].reset();
+            latencies[i].reset();
+        }
+    }
+
+    /**
+     * @return one line per operation that was called: its calls, candidates and latency percentiles in
+     * microseconds.
+     */
+    @Override
+    public String toString() {
+        StringBuilder table = new StringBuilder(String.format("%-8s %10s %10s %9s %9s %9s %9s", "", "calls", "found",
+                "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Metrics.Operation operation : OPERATIONS) {
+            int i = operation.ordinal();
+            long count = calls[i].sum();
+            if (count == 0)
+                continue;
+
+            LatencyHistogram latency = latencies[i];
+            table.append(String.format("\n%-8s %10d %10d %9.2f %9.2f %9.2f %9.2f", operation.name().toLowerCase(),
+                    count, candidates[i].sum(), latency.getValueAt(50) / 1e3, latency.getValueAt(99) / 1e3,
+                    latency.getValueAt(99.9) / 1e3, latency.getMax() / 1e3));
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Optional instrumentation of the hot paths: the queries of a {@link Trie} and {@link Wordle#guess(String)}.
+ *
+ * Each call records the trie nodes it visited, the branches it pruned by the kind of constraint that ruled them
+ * out, the candidates it found and its latency. Calls are added to totals and latency histograms, read with
+ * {@link #snapshot()}, and each is also a {@link QueryEvent} for Java Flight Recorder.
+ *
+ * Instrumentation is off unless the JVM is started with -Dcs4p6.metrics=true. The flag is a constant, so when it
+ * is off the JIT compiler removes the instrumentation from the hot paths altogether.
+ *
+ * Only the trie is instrumented this way. To measure the latency and candidates of the queries of any lexicon,
+ * wrap it in a {@link MeteredLexicon}.
+ */
+public final class Metrics {
+
+    public static final String PROPERTY = "cs4p6.metrics";
+
+    /**
+     * True if calls are instrumented.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /**
+     * The instrumented calls.
+     */
+    public enum Operation {
+        WORDLE,
+        // each solution pulled from a wordleStream(), or its end
+        STREAM,
+        // countWordle(), the candidates are the count
+        COUNT,
+        SAMPLE,
+        CONTAINS,
+        GUESS
+    }
+
+    /**
+     * The constraints a branch can be pruned by.
+     */
+    public enum Prune {
+        // a letter that is not in the word
+        GREY,
+        // a letter other than the green at its position
+        GREEN,
+        // a letter known not to be at its position, for the yellows of a Constraint
+        POSITION,
+        // too few letters left for the letters known to be in the word
+        YELLOW,
+        // a letter appearing more often than it can
+        COUNT
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Prune[] PRUNES = Prune.values();
+
+    // the totals of an operation
+    private static class Totals {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder candidates = new LongAdder();
+        private final LongAdder[] pruned = new LongAdder[PRUNES.length];
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Totals() {
+            for (int i = 0; i < pruned.length; i++)
+                pruned[i] = new LongAdder();
+        }
+    }
+
+    private static final Totals[] TOTALS = new Totals[OPERATIONS.length];
+    static {
+        for (int i = 0; i < TOTALS.length; i++)
+            TOTALS[i] = new Totals();
+    }
+
+    // hide the constructor --> utility class
+    private Metrics() {};
+
+    /**
+     * Start instrumenting a call, only when {@link #ENABLED}.
+     * @param operation the call.
+     * @return the probe counting for the call, to end once it returns.
+     */
+    static Probe start(Operation operation) {
+        return new Probe(operation);
+    }
+
+    /**
+     * @return the totals recorded so far.
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * Forget the totals recorded so far. Calls in progress may be partly counted.
+     */
+    public static void reset() {
+        for (Totals totals : TOTALS) {
+            totals.calls.reset();
+            totals.nodes.reset();
+            totals.candidates.reset();
+            for (LongAdder pruned : totals.pruned)
+                pruned.reset();
+            totals.latency.reset();
+        }
+    }
+
+    /**
+     * The counts of one call, kept by the thread making it and added to the totals when it ends.
+     */
+    static final class Probe {
+        private final Operation operation;
+        private final QueryEvent event;
+        private final long start;
+
+        private long nodes;
+        private long candidates;
+        private final long[] pruned;
+
+        private Probe(Operation operation) {
+            this.operation = operation;
+            this.event = new QueryEvent();
+            this.pruned = new long[PRUNES.length];
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        void visit() {
+            nodes++;
+        }
+
+        void prune(Prune prune) {
+            pruned[prune.ordinal()]++;
+        }
+
+        void found() {
+            candidates++;
+        }
+
+        void found(long count) {
+            candidates += count;
+        }
+
+        void end() {
+            long latency = System.nanoTime() - start;
+            event.end();
+
+            Totals totals = TOTALS[operation.ordinal()];
+            totals.calls.increment();
+            totals.nodes.add(nodes);
+            totals.candidates.add(candidates);
+            for (int i = 0; i < pruned.length; i++)
+                totals.pruned[i].add(pruned[i]);
+            totals.latency.record(latency);
+
+            if (event.shouldCommit()) {
+                event.operation = operation.name();
+                event.nodes = nodes;
+                event.candidates = candidates;
+                event.grey = pruned[Prune.GREY.ordinal()];
+                event.green = pruned[Prune.GREEN.ordinal()];
+                event.position = pruned[Prune.POSITION.ordinal()];
+                event.yellow = pruned[Prune.YELLOW.ordinal()];
+                event.count = pruned[Prune.COUNT.ordinal()];
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * A Java Flight Recorder event for each instrumented call.
+     */
+    @Name("ca.qc.johnabbott.cs4p6.Query")
+    @Label("Wordle Query")
+    @Category("Wordle")
+    @Description("A lexicon query or a guess, with the trie nodes it visited and pruned")
+    @StackTrace(false)
+    static class QueryEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Nodes Visited")
+        long nodes;
+
+        @Label("Candidates")
+        long candidates;
+
+        @Label("Grey Prunes")
+        long grey;
+
+        @Label("Green Prunes")
+        long green;
+
+        @Label("Position Prunes")
+        long position;
+
+        @Label("Yellow Prunes")
+        long yellow;
+
+        @Label("Count Prunes")
+        long count;
+    }
+
+    /**
+     * The totals of every operation at one point in time.
+     */
+    public static final class Snapshot {
+        private final long[] calls = new long[OPERATIONS.length];
+        private final long[] nodes = new long[OPERATIONS.length];
+        private final long[] candidates = new long[OPERATIONS.length];
+        private final long[][] pruned = new long[OPERATIONS.length][PRUNES.length];
+        private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+
+        private Snapshot() {
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                Totals totals = TOTALS[i];
+                calls[i] = totals.calls.sum();
+                nodes[i] = totals.nodes.sum();
+                candidates[i] = totals.candidates.sum();
+                for (int j = 0; j < PRUNES.length; j++)
+                    pruned[i][j] = totals.pruned[j].sum();
+                latencies[i] = totals.latency.copy();
+            }
+        }
+
+        public long getCalls(Operation operation) {
+            return calls[operation.ordinal()];
+        }
+
+        public long getNodesVisited(Operation operation) {
+            return nodes[operation.ordinal()];
+        }
+
+        public long getCandidates(Operation operation) {
+            return candidates[operation.ordinal()];
+        }
+
+        public long getPruned(Operation operation, Prune prune) {
+            return pruned[operation.ordinal()][prune.ordinal()];
+        }
+
+        /**
+         * @param operation the operation.
+         * @return a copy of its latencies in nanoseconds.
+         */
+        public LatencyHistogram getLatency(Operation operation) {
+            return latencies[operation.ordinal()].copy();
+        }
+
+        /**
+         * @return one line per operation: its calls, totals and latency percentiles in microseconds.
+         */
+        @Override
+        public String toString() {
+            StringBuilder table = new StringBuilder(String.format("%-8s %10s %12s %10s", "", "calls", "nodes",
+                    "found"));
+            for (Prune prune : PRUNES)
+                table.append(String.format(" %10s", prune.name().toLowerCase()));
+            table.append(String.format(" %9s %9s %9s %9s", "p50 us", "p99 us", "p99.9 us", "max us"));
+
+            for (Operation operation : OPERATIONS) {
+                int i = operation.ordinal();
+                table.append(String.format("\n%-8s %10d %12d %10d", operation.name().toLowerCase(), calls[i],
+                        nodes[i], candidates[i]));
+                for (Prune prune : PRUNES)
+                    table.append(String.format(" %10d", pruned[i][prune.ordinal()]));
+
+                LatencyHistogram latency = latencies[i];
+                table.append(String.format(" %9.2f %9.2f %9.2f %9.2f", latency.getValueAt(50) / 1e3,
+                        latency.getValueAt(99) / 1e3, latency.getValueAt(99.9) / 1e3, latency.getMax() / 1e3));
+            }
+            return table.toString();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Solver for games of several boards, see {@link MultiWordle}.
+ *
+ * Each board keeps its own candidates, narrowed after every guess with the exact patterns of a
+ * {@link FeedbackMatrix} shared by every board and game. The boards are narrowed in parallel, then the guess with
+ * the most information summed over the boards is played, see {@link GuessAdvisor}. A board with a single candidate
+ * left is solved right away, and once there are only as many guesses left as unsolved boards, only candidates are
+ * played.
+ *
+ * After the opener, the candidates of a board only depend on the pattern it showed, so the scores of every guess
+ * for each pattern are computed once and shared by every board and game. The second guess, by far the most
+ * expensive to rank since the boards still have many candidates, then only sums the scores of the boards.
+ */
+public class MultiSolver {
+
+    private final FeedbackMatrix matrix;
+    private final GuessAdvisor advisor;
+    private final String opener;
+
+    // the scores of the guesses for a board after the opener, by the pattern of the opener
+    private final AtomicReferenceArray<GuessAdvisor.Scores> opening;
+
+    // the candidates of each board, empty once it is solved
+    private final BitSet[] candidates;
+    private int guessesLeft;
+    private boolean first = true;
+
+    // the pattern of the opener on each board (-1 if it solved it) until the second guess is played
+    private int[] opened;
+
+    private MultiSolver(FeedbackMatrix matrix, GuessAdvisor advisor, String opener,
+            AtomicReferenceArray<GuessAdvisor.Scores> opening, int boards) {
+        this.matrix = matrix;
+        this.advisor = advisor;
+        this.opener = opener;
+        this.opening = opening;
+        this.candidates = new BitSet[boards];
+        for (int i = 0; i < boards; i++) {
+            candidates[i] = new BitSet(matrix.size());
+            candidates[i].set(0, matrix.size());
+        }
+        this.guessesLeft = boards + MultiWordle.EXTRA_GUESSES;
+    }
+
+    /**
+     * Create solvers sharing a matrix. Every board starts with the same candidates, so the opening guess is the
+     * same as for one board, ranked once here.
+     * @param matrix the patterns of the words.
+     * @param boards the number of boards of a game.
+     * @return a supplier of solvers, one per game.
+     */
+    public static Supplier<MultiSolver> factory(FeedbackMatrix matrix, int boards) {
+        if (boards < 1)
+            throw new IllegalArgumentException("There must be at least one board.");
+
+        GuessAdvisor advisor = new GuessAdvisor(matrix);
+        BitSet all = new BitSet(matrix.size());
+        all.set(0, matrix.size());
+        String opener = advisor.rankUntil(all, 1, GuessAdvisor.NO_DEADLINE).get(0).getWord();
+        AtomicReferenceArray<GuessAdvisor.Scores> opening = new AtomicReferenceArray<>(
+                Wordle.solved(opener.length()) + 1);
+        return () -> new MultiSolver(matrix, advisor, opener, opening, boards);
+    }
+
+    /**
+     * Choose the next guess.
+     * @return a word of the matrix, or null if every board is solved.
+     */
+    public String nextGuess() {
+        if (first)
+            return opener;
+
+        List<BitSet> unsolved = new ArrayList<>();
+        for (BitSet board : candidates) {
+            if (board.isEmpty())
+                continue;
+
+            // a board with a single candidate is won by playing it
+            if (board.cardinality() == 1)
+                return matrix.getWord(board.nextSetBit(0));
+            unsolved.add(board);
+        }
+        if (unsolved.isEmpty())
+            return null;
+
+        // with a guess left per board, every guess must be able to win one
+        if (guessesLeft <= unsolved.size()) {
+            for (GuessAdvisor.Guess guess : advisor.rankUntil(unsolved, matrix.size(), GuessAdvisor.NO_DEADLINE)) {
+                if (guess.isCandidate())
+                    return guess.getWord();
+            }
+        }
+
+        if (opened != null)
+            return advisor.rank(openingScores(), 1).get(0).getWord();
+        return advisor.rankUntil(unsolved, 1, GuessAdvisor.NO_DEADLINE).get(0).getWord();
+    }
+
+    /**
+     * Learn from the result of a guess, narrowing the boards in parallel.
+     * @param guess the guess that was played.
+     * @param result its result.
+     */
+    public void update(String guess, MultiWordle.Result result) {
+        if (!result.isValid())
+            return;
+
+        // the scores after the opener only hold for the guess that follows it
+        opened = first && guess.equals(opener) ? new int[candidates.length] : null;
+        first = false;
+        guessesLeft--;
+        int id = matrix.indexOf(guess);
+        IntStream.range(0, candidates.length).parallel().forEach(board -> {
+            Wordle.Result played = result.getBoard(board);
+            if (played == null)
+                return;
+
+            if (opened != null)
+                opened[board] = played.isCorrect() ? -1 : played.getPattern();
+
+            if (played.isCorrect())
+                candidates[board].clear();
+            else if (id >= 0)
+                matrix.narrow(candidates[board], id, played.getPattern());
+            else
+                narrow(candidates[board], played.getConstraint());
+        });
+    }
+
+    // the scores of the unsolved boards after the opener, computing those of patterns not seen yet.
+    private List<GuessAdvisor.Scores> openingScores() {
+        List<GuessAdvisor.Scores> scores = new ArrayList<>();
+        for (int board = 0; board < candidates.length; board++) {
+            int pattern = opened[board];
+            if (pattern < 0 || candidates[board].isEmpty())
+                continue;
+
+            // another game may be computing the same scores, either copy will do
+            GuessAdvisor.Scores shared = opening.get(pattern);
+            if (shared == null) {
+                opening.compareAndSet(pattern, null, advisor.score((BitSet) candidates[board].clone()));
+                shared = opening.get(pattern);
+            }
+            scores.add(shared);
+        }
+        return scores;
+    }
+
+    // narrow by the constraint of a guess that is not in the matrix.
+    private void narrow(BitSet board, Constraint constraint) {
+        for (int id = board.nextSetBit(0); id >= 0; id = board.nextSetBit(id + 1)) {
+            if (!constraint.matches(matrix.getWord(id)))
+                board.clear(id);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Several boards of wordle played at once, as in Quordle (4 boards) or Octordle (8): each guess is scored against
+ * every board that is not solved yet, and the game is won once every board is solved. A game of n boards allows
+ * n + 5 guesses.
+ *
+ * The boards are plain {@link Wordle} games sharing one lexicon.
+ */
+public class MultiWordle {
+
+    /**
+     * The number of guesses allowed beyond one per board.
+     */
+    public static final int EXTRA_GUESSES = Wordle.MAX_GUESSES - 1;
+
+    /**
+     * The result of a guess on every board.
+     */
+    public static class Result {
+        private final int guessNumber;
+        private final Wordle.Result[] boards;
+        private final boolean solved;
+        private final String message;
+
+        private Result(int guessNumber, Wordle.Result[] boards, boolean solved, String message) {
+            this.guessNumber = guessNumber;
+            this.boards = boards;
+            this.solved = solved;
+            this.message = message;
+        }
+
+        public int getGuessNumber() {
+            return guessNumber;
+        }
+
+        /**
+         * @return true if the guess was played, false if it was refused, see {@link #getMessage()}.
+         */
+        public boolean isValid() {
+            return boards != null;
+        }
+
+        /**
+         * @param board the index of a board.
+         * @return the result of the guess on the board, or null if the guess was refused or the board was already
+         * solved before it.
+         */
+        public Wordle.Result getBoard(int board) {
+            return boards == null ? null : boards[board];
+        }
+
+        /**
+         * @return true if every board is solved after the guess.
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * @return the pattern of each board, or why the guess was refused.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final Wordle[] boards;
+    private final boolean[] solved;
+    private final int length;
+    private final int maxGuesses;
+    private int currentGuess;
+    private int unsolved;
+
+    /**
+     * Construct a game with a board per word.
+     * @param words the words of the boards, all of the same length.
+     */
+    public MultiWordle(List<String> words) {
+        if (words.isEmpty())
+            throw new IllegalArgumentException("There must be at least one board.");
+
+        this.length = words.get(0).length();
+        this.maxGuesses = words.size() + EXTRA_GUESSES;
+        this.boards = new Wordle[words.size()];
+        this.solved = new boolean[words.size()];
+        this.unsolved = words.size();
+        for (int i = 0; i < boards.length; i++) {
+            if (words.get(i).length() != length)
+                throw new IllegalArgumentException("\"" + words.get(i) + "\" is not " + length + " letters long.");
+            boards[i] = new Wordle(words.get(i), maxGuesses);
+        }
+    }
+
+    /**
+     * Set the lexicon of every board.
+     * @param lexicon the lexicon validating guesses.
+     */
+    public void setLexicon(Lexicon lexicon) {
+        for (Wordle board : boards)
+            board.setLexicon(lexicon);
+    }
+
+    /**
+     * @return the number of boards.
+     */
+    public int getBoards() {
+        return boards.length;
+    }
+
+    /**
+     * @return the word length.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the number of guesses played.
+     */
+    public int getCurrentGuess() {
+        return currentGuess;
+    }
+
+    /**
+     * @return the number of guesses allowed.
+     */
+    public int getMaxGuesses() {
+        return maxGuesses;
+    }
+
+    /**
+     * @param board the index of a board.
+     * @return true if the board is solved.
+     */
+    public boolean isSolved(int board) {
+        return solved[board];
+    }
+
+    /**
+     * @return true if every board is solved.
+     */
+    public boolean isSolved() {
+        return unsolved == 0;
+    }
+
+    /**
+     * @return true if every board is solved or there are no guesses left.
+     */
+    public boolean isDone() {
+        return unsolved == 0 || currentGuess == maxGuesses;
+    }
+
+    /**
+     * Play a guess on every board that is not solved yet.
+     * @param guess the guess.
+     * @return the result.
+     */
+    public Result guess(String guess) {
+        if (unsolved == 0)
+            return new Result(currentGuess, null, true, "Every board is solved.");
+        if (currentGuess == maxGuesses)
+            return new Result(currentGuess, null, false, "Out of guesses.");
+
+        Wordle.Result[] results = new Wordle.Result[boards.length];
+        StringJoiner patterns = new StringJoiner(" ");
+        for (int i = 0; i < boards.length; i++) {
+            if (solved[i]) {
+                patterns.add(" ".repeat(length));
+                continue;
+            }
+
+            // the boards share their length and lexicon, so a guess is refused by all of them or none
+            results[i] = boards[i].guess(guess);
+            if (results[i].getConstraint() == null)
+                return new Result(currentGuess, null, false, results[i].getMessage());
+
+            patterns.add(results[i].getMessage());
+            if (results[i].isCorrect()) {
+                solved[i] = true;
+                unsolved--;
+            }
+        }
+
+        currentGuess++;
+        return new Result(currentGuess, results, unsolved == 0, patterns.toString());
+    }
+}
@@ -0,0 +1,86 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Headless batch mode for games of several boards: play random games with a {@link MultiSolver} for each number
+ * of boards, and report how many are won and how long a guess takes, choosing it and narrowing every board.
+ *
+ * Games are played one at a time, so a guess has every core to itself.
+ *
+ * Usage: MultiWordleSimulator [boards,boards,..] [games]
+ */
+public class MultiWordleSimulator {
+
+    public static final int LENGTH = 5;
+    public static final int DEFAULT_GAMES = 50;
+    public static final int[] DEFAULT_BOARDS = { 1, 2, 4, 8, 16 };
+
+    public static void main(String[] args) throws IOException {
+        int[] boards = args.length > 0 ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_BOARDS;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAMES;
+
+        Lexicon lexicon = new Trie();
+        LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+        List<String> answers = lexicon.wordle(LENGTH, Set.of(), Map.of(), List.of());
+        FeedbackMatrix matrix = FeedbackMatrix.build(answers);
+
+        System.out.printf("%d games per row, %d cores\n", games, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%6s %8s %8s %10s %10s %10s\n", "boards", "won", "guesses", "p50 ms", "p99 ms", "max ms");
+        Random random = new Random();
+        for (int n : boards) {
+            Supplier<MultiSolver> solvers = MultiSolver.factory(matrix, n);
+            List<Long> latencies = new ArrayList<>();
+            int won = 0;
+            long guesses = 0;
+            for (int i = 0; i < games; i++) {
+                List<String> words = new ArrayList<>();
+                for (int board = 0; board < n; board++)
+                    words.add(answers.get(random.nextInt(answers.size())));
+
+                MultiWordle game = new MultiWordle(words);
+                game.setLexicon(lexicon);
+                play(game, solvers.get(), latencies);
+                if (game.isSolved())
+                    won++;
+                guesses += game.getCurrentGuess();
+            }
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            System.out.printf("%6d %7.1f%% %8.2f %10.2f %10.2f %10.2f\n", n, 100.0 * won / games,
+                    (double) guesses / games, percentile(sorted, 50), percentile(sorted, 99),
+                    percentile(sorted, 100));
+        }
+    }
+
+    // play a game to the end, adding the latency of each guess after the opener in nanoseconds.
+    private static void play(MultiWordle game, MultiSolver solver, List<Long> latencies) {
+        boolean first = true;
+        while (!game.isDone()) {
+            long start = System.nanoTime();
+            String guess = solver.nextGuess();
+            MultiWordle.Result result = game.guess(guess);
+            solver.update(guess, result);
+            if (!first)
+                latencies.add(System.nanoTime() - start);
+            first = false;
+        }
+    }
+
+    // a percentile of sorted latencies in nanoseconds, in milliseconds, 0 if there are none.
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
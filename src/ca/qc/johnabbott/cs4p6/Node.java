@@ -0,0 +1,56 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+class Node<T> {
+    private static final int[] NO_COUNTS = new int[0];
+
+    private T element;
+    private Map<T, Node<T>> children;
+    private boolean isWord = false;
+
+    // number of words in the subtree by the number of letters below this node
+    private int[] counts = NO_COUNTS;
+
+    public Node(T element) {
+        this.element = element;
+        this.children = new HashMap<T, Node<T>>();
+    }
+
+    public T getElement() {
+        return element;
+    }
+
+    public void setElement(T element) {
+        this.element = element;
+    }
+
+    public Map<T, Node<T>> getChildren() {
+        return children;
+    }
+
+    public void addChild(T element) {
+        if (!children.containsKey(element))
+            children.put(element, new Node<T>(element));
+    }
+
+    public boolean isWord() {
+        return isWord;
+    }
+
+    public void setWord(boolean isWord) {
+        this.isWord = isWord;
+    }
+
+    public int getCount(int length) {
+        return length < counts.length ? counts[length] : 0;
+    }
+
+    public void addCount(int length, int count) {
+        if (length >= counts.length)
+            counts = Arrays.copyOf(counts, length + 1);
+        counts[length] += count;
+    }
+}
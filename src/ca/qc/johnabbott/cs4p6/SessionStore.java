@@ -0,0 +1,155 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sessions by id, dropped once they have been idle for too long.
+ *
+ * Like {@link CachingLexicon}, the map is split into shards, each a plain map with its own lock, so requests for
+ * different sessions rarely wait on each other. Idle sessions are dropped by {@link #expire()}, which the owner
+ * calls periodically, or as they are next looked up.
+ *
+ * @param <S> the session type.
+ */
+public class SessionStore<S> {
+
+    private static final int SHARDS = 64;
+
+    // a session with the last time it was used.
+    private static class Entry<S> {
+        private final S session;
+        private volatile long lastAccess;
+
+        private Entry(S session) {
+            this.session = session;
+            this.lastAccess = System.nanoTime();
+        }
+    }
+
+    private final Map<String, Entry<S>>[] shards;
+    private final long idleNanos;
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * Create an empty store.
+     * @param idleMillis how long a session can go unused before it expires, in milliseconds.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public SessionStore(long idleMillis) {
+        if (idleMillis <= 0)
+            throw new IllegalArgumentException("The idle time must be positive.");
+
+        this.idleNanos = Math.multiplyExact(idleMillis, 1_000_000L);
+        this.shards = new Map[SHARDS];
+        for (int i = 0; i < SHARDS; i++)
+            shards[i] = new HashMap<>();
+    }
+
+    private Map<String, Entry<S>> shard(String id) {
+        int hash = id.hashCode();
+        return shards[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % SHARDS];
+    }
+
+    /**
+     * Add a session under a new random id.
+     * @param session the session.
+     * @return its id.
+     */
+    public String add(S session) {
+        while (true) {
+            String id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            Map<String, Entry<S>> shard = shard(id);
+            synchronized (shard) {
+                if (!shard.containsKey(id)) {
+                    shard.put(id, new Entry<>(session));
+                    return id;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a session, counting as a use of it.
+     * @param id the id of the session.
+     * @return the session, or null if there is none or it has expired.
+     */
+    public S get(String id) {
+        Map<String, Entry<S>> shard = shard(id);
+        long now = System.nanoTime();
+        synchronized (shard) {
+            Entry<S> entry = shard.get(id);
+            if (entry == null)
+                return null;
+
+            // expired but not swept yet
+            if (now - entry.lastAccess > idleNanos) {
+                shard.remove(id);
+                expired.increment();
+                return null;
+            }
+
+            entry.lastAccess = now;
+            return entry.session;
+        }
+    }
+
+    /**
+     * Remove a session.
+     * @param id the id of the session.
+     * @return the session, or null if there was none.
+     */
+    public S remove(String id) {
+        Map<String, Entry<S>> shard = shard(id);
+        Entry<S> entry;
+        synchronized (shard) {
+            entry = shard.remove(id);
+        }
+        return entry == null ? null : entry.session;
+    }
+
+    /**
+     * Drop every session that has been idle for too long, one shard at a time.
+     * @return the number of sessions dropped.
+     */
+    public int expire() {
+        long now = System.nanoTime();
+        int dropped = 0;
+        for (Map<String, Entry<S>> shard : shards) {
+            synchronized (shard) {
+                Iterator<Entry<S>> entries = shard.values().iterator();
+                while (entries.hasNext()) {
+                    if (now - entries.next().lastAccess > idleNanos) {
+                        entries.remove();
+                        dropped++;
+                    }
+                }
+            }
+        }
+        expired.add(dropped);
+        return dropped;
+    }
+
+    /**
+     * @return the number of sessions.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, Entry<S>> shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of sessions dropped for being idle so far.
+     */
+    public long getExpired() {
+        return expired.sum();
+    }
+}
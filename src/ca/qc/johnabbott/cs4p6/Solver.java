@@ -0,0 +1,20 @@
+package ca.qc.johnabbott.cs4p6;
+
+/**
+ * Strategy playing one game of wordle. A solver keeps the state of its game, so a new one is created per game.
+ */
+public interface Solver {
+
+    /**
+     * Choose the next guess.
+     * @return a lexicon word of the game's length.
+     */
+    String nextGuess();
+
+    /**
+     * Learn from the result of a guess.
+     * @param guess the guess that was played.
+     * @param result its result.
+     */
+    void update(String guess, Wordle.Result result);
+}
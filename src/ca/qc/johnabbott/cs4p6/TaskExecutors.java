@@ -0,0 +1,26 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for running many independent tasks, such as games or requests.
+ */
+public class TaskExecutors {
+
+    // hide the constructor --> utility class
+    private TaskExecutors() {};
+
+    /**
+     * Create an executor running each task on its own virtual thread when the JVM supports them (Java 21+),
+     * otherwise on a fixed pool with one thread per core.
+     * @return the executor.
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
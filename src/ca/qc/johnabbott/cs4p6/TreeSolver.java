@@ -0,0 +1,43 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.function.Supplier;
+
+/**
+ * Solver that follows a precomputed {@link DecisionTree}: every guess is a lookup by the pattern of the previous
+ * one.
+ */
+public class TreeSolver implements Solver {
+
+    private final DecisionTree tree;
+    private int node;
+
+    private TreeSolver(DecisionTree tree) {
+        this.tree = tree;
+        this.node = 0;
+    }
+
+    /**
+     * Create solvers sharing a tree.
+     * @param tree the tree.
+     * @return a supplier of solvers, one per game.
+     */
+    public static Supplier<Solver> factory(DecisionTree tree) {
+        return () -> new TreeSolver(tree);
+    }
+
+    @Override
+    public String nextGuess() {
+        if (node < 0)
+            throw new IllegalStateException("The answer is not one of the answers of the decision tree.");
+        return tree.getGuess(node);
+    }
+
+    @Override
+    public void update(String guess, Wordle.Result result) {
+        // a guess off the tree, or an unscored one, leaves the tree
+        if (node >= 0 && guess.equals(tree.getGuess(node)))
+            node = tree.next(node, result.getPattern());
+        else
+            node = -1;
+    }
+}
@@ -1,19 +1,30 @@
 package ca.qc.johnabbott.cs4p6;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Trie implements Lexicon {
 
     private Node<Character> root;
-    private Node<Character> projection;
 
     public Trie() {
         root = new Node<Character>(' ');
-        projection = new Node<Character>(' ');
     }
 
     @Override
@@ -21,346 +32,510 @@ public class Trie implements Lexicon {
 
         Node<Character> current = root;
         add(current, word, 0);
+    }
 
-        echoToProjection(word);
+    // Add many words at once. Words are grouped by their first letter and the
+    // subtrie of each letter is built as a separate task on the common fork-join
+    // pool. The resulting trie is the same as adding each word in turn.
+    @Override
+    public void addAll(Collection<String> words) {
+        addAll(words, ForkJoinPool.commonPool());
     }
 
-    // Recursive helper method for add to fulfill assignment requirements.
-    private void add(Node<Character> current, String word, int place) {
-        // Base case: word is empty or at the end of the word.
-        if (word.length() == 0 || word.length() - 1 == place) {
-            current.setWord(true);
-            return;
+    // Add many words at once, building the subtrie of each first letter on the
+    // given pool.
+    public void addAll(Collection<String> words, ForkJoinPool pool) {
+
+        // Group the words by first letter. Each group is only ever added under its
+        // own child of the root, so the groups can be built concurrently.
+        Map<Character, List<String>> groups = new HashMap<Character, List<String>>();
+        for (String word : words) {
+            if (word.length() == 0) {
+                if (!root.isWord()) {
+                    root.setWord(true);
+                    root.addCount(0, 1);
+                }
+            }
+            else
+                groups.computeIfAbsent(word.charAt(0), letter -> new ArrayList<String>()).add(word);
         }
 
-        // Recursive case: word is not empty and not at the end of the word.
-        // If the node already has a child with the current letter, then
-        // recursively call add on that child. Otherwise, add a new child
-        // with the current letter and recursively call add on that child.
-        if (current.getChildren().containsKey(word.charAt(place)))
-            add(current.getChildren().get(word.charAt(place)), word, place + 1);
-        else {
-            current.addChild(word.charAt(place));
-            add(current.getChildren().get(word.charAt(place)), word, place + 1);
+        // The root is only modified here, before any task starts and after they all
+        // finish. Each task returns the lengths of the words it added, for the
+        // counts of the root.
+        List<Callable<List<Integer>>> tasks = new ArrayList<Callable<List<Integer>>>();
+        for (Map.Entry<Character, List<String>> group : groups.entrySet()) {
+            root.addChild(group.getKey());
+            Node<Character> child = root.getChildren().get(group.getKey());
+            tasks.add(() -> {
+                List<Integer> added = new ArrayList<Integer>();
+                for (String word : group.getValue()) {
+                    if (add(child, word, 1))
+                        added.add(word.length());
+                }
+                return added;
+            });
         }
 
+        // Wait for every subtrie, joining also publishes them to this thread.
+        for (Future<List<Integer>> task : pool.invokeAll(tasks)) {
+            try {
+                for (int length : task.get())
+                    root.addCount(length, 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
     }
 
-    // Helper method to echo the word to the projection trie, used to avoid
-    // mutating the original trie. Also, used to showcase my original appraoch
-    // to add before I realized recursion was required.
-    private void echoToProjection(String word) {
-        Node<Character> current = projection;
-        if (word.length() == 0) {
-            projection = current;
-            return;
+    // Recursive helper method for add to fulfill assignment requirements. Returns
+    // true if the word is new, counting it in every node along its path.
+    private boolean add(Node<Character> current, String word, int place) {
+        // Base case: word is empty or every letter has been added.
+        if (word.length() == place) {
+            if (current.isWord())
+                return false;
+            current.setWord(true);
+            current.addCount(0, 1);
+            return true;
         }
 
-        for (int i = 0; i < word.length(); i++) {
-            if (current.getChildren().containsKey(word.charAt(i)))
-                current = current.getChildren().get(word.charAt(i));
-            else {
-                current.addChild(word.charAt(i));
-                current = current.getChildren().get(word.charAt(i));
-            }
-
-            if (i == word.length() - 1) {
-                current.setWord(true);
-            }
-        }
+        // Recursive case: word is not empty and not at the end of the word.
+        // If the node does not have a child with the current letter yet, add
+        // one, then recursively call add on that child. A new word is counted
+        // on the way back up, by the number of letters below this node.
+        if (!current.getChildren().containsKey(word.charAt(place)))
+            current.addChild(word.charAt(place));
+        if (!add(current.getChildren().get(word.charAt(place)), word, place + 1))
+            return false;
+        current.addCount(word.length() - place, 1);
+        return true;
     }
 
     @Override
     public boolean contains(String word) {
         Node<Character> current = root;
-        return contains(current, word, 0);
+        Metrics.Probe probe = Metrics.ENABLED ? Metrics.start(Metrics.Operation.CONTAINS) : null;
+        try {
+            boolean found = contains(current, word, 0, probe);
+            if (Metrics.ENABLED && found)
+                probe.found();
+            return found;
+        } finally {
+            if (Metrics.ENABLED)
+                probe.end();
+        }
     }
 
     // Recursive helper method for contains to fulfill assignment requirements.
-    private boolean contains(Node<Character> current, String word, int place) {
-        // Base case: word is empty or at the end of the word.
-        if (word.length() == 0 || word.length() - 1 == place)
+    private boolean contains(Node<Character> current, String word, int place, Metrics.Probe probe) {
+        if (Metrics.ENABLED)
+            probe.visit();
+
+        // Base case: word is empty or every letter has been matched.
+        if (word.length() == place)
             return current.isWord();
 
         // Recursive case: word is not empty and not at the end of the word.
         // Check if the node has a child with the current letter. If it does,
         // then recursively call contains on that child. Otherwise, return false.
         if (current.getChildren().containsKey(word.charAt(place)))
-            return contains(current.getChildren().get(word.charAt(place)), word, place + 1);
+            return contains(current.getChildren().get(word.charAt(place)), word, place + 1, probe);
         else
             return false;
     }
 
+    // Compile the trie into an immutable snapshot stored in flat arrays, with no
+    // per-node objects. Words added later do not affect the snapshot.
+    public FrozenTrie freeze() {
+        return FrozenTrie.freeze(root);
+    }
+
+    // The trie itself is never modified by a query: the constraints are compiled
+    // into a query object owned by the call, so one trie can serve many games and
+    // threads.
     @Override
     public List<String> wordle(int length, Set<Character> greys, Map<Integer, Character> greens,
             List<Character> yellows) {
 
-        // Cull branches that don't lead to a word of the correct length.
-        branchToCount(0, length, projection);
-        branchToWord(0, length, projection);
-
-        // Cull branches that contain a grey letter.
-        branchWithNoGreys(0, length, projection, greys);
-
-        // Cull branches that don't have a green letter in the correct position.
-        greensInPlace(-1, length, projection, greens);
-
-        // Return all words that are left.
-        List<String> words = getWords(projection, "", new ArrayList<String>(), length, yellows);
+        List<String> words = new ArrayList<String>();
+        wordle(length, greys, greens, yellows, words::add);
         return words;
     }
 
-    // #region Branch To Count
-    // Comb through the trie and remove any branches that don't lead to the passed
-    // word length at the beginning of a wordle game.
-    private boolean branchToCount(int start, int length, Node<Character> node) {
-        boolean flag = false;
-        List<Character> removedChildren = new ArrayList<Character>();
-
-        // Base case: branch reaches correct length.
-        if (start == length)
-            return true;
-
-        // Base case: branch is too short.
-        if (node.getChildren().size() == 0) {
-            node.setCanLeadToWord(false);
-            return false;
+    // Visit the solutions without collecting them in a list.
+    @Override
+    public void wordle(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows,
+            Consumer<String> action) {
+
+        WordleQuery query = new WordleQuery(length, greys, greens, yellows);
+        Metrics.Probe probe = Metrics.ENABLED ? Metrics.start(Metrics.Operation.WORDLE) : null;
+        try {
+            getWords(root, new char[Math.max(length, 0)], 0, 0, action, query, probe);
+        } finally {
+            if (Metrics.ENABLED)
+                probe.end();
         }
+    }
 
-        // Recursive case: branch is long enough, but not yet at the correct length.
-        // If any of the children branches can reach the correct length, then this
-        // branch can reach the correct length, but any branch that doesn't reach the
-        // correct length is still removed.
-        for (Node<Character> child : node.getChildren().values()) {
-            if (branchToCount(start + 1, length, child))
-                flag = true;
-            else {
-                child.setCanLeadToWord(false);
-                removedChildren.add(child.getElement());
-            }
+    // Visit the solutions of the full constraint of a game, counting letters as the
+    // branch grows to check them against their minimum and maximum counts.
+    @Override
+    public void wordle(Constraint constraint, Consumer<String> action) {
+        Metrics.Probe probe = Metrics.ENABLED ? Metrics.start(Metrics.Operation.WORDLE) : null;
+        try {
+            getWords(root, new char[constraint.getLength()], 0, new int[Alphabets.FULL_ALPHABET.length],
+                    constraint.getMissing(), action, constraint, probe);
+        } finally {
+            if (Metrics.ENABLED)
+                probe.end();
         }
-
-        // Remove all children that have a gray.
-        // * Was required to use a list and remove them after the loop. Otherwise, the
-        // * loop would throw a concurrent modification exception.
-        for (Character child : removedChildren)
-            node.getChildren().remove(child);
-
-        // If no children branches can reach the correct length, then this branch
-        // cannot reach the correct length.
-        if (!flag)
-            node.setCanLeadToWord(false);
-
-        return flag;
     }
-    // #endregion
 
-    // #region Branch To Word
-    // Comb through the trie and remove any branches that don't lead to a word at
-    // the beginning of a wordle game.
-    private boolean branchToWord(int start, int length, Node<Character> node) {
-        boolean flag = false;
-        List<Character> removedChildren = new ArrayList<Character>();
-
-        // Base case: branch reaches correct length and is a word.
-        if (start == length && node.isWord())
-            return true;
+    // Stream the solutions of a constraint, walking the trie only as far as the
+    // stream is consumed, so limit() stops the walk early. The trie must not be
+    // modified while the stream is in use. For the metrics, each solution pulled
+    // from the stream is a call of its own.
+    @Override
+    public Stream<String> wordleStream(Constraint constraint) {
+        Spliterator<String> words = Spliterators.spliteratorUnknownSize(new Walk(root, constraint),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(words, false);
+    }
 
-        // Base case: Branch length is correct, but is not a word.
-        if (start == length && !node.isWord()) {
-            node.setCanLeadToWord(false);
-            return false;
+    // Count the solutions of a constraint without creating their strings. Once the
+    // rest of the word is unconstrained, the words below a node are counted by the
+    // node itself instead of being walked.
+    @Override
+    public long countWordle(Constraint constraint) {
+        Metrics.Probe probe = Metrics.ENABLED ? Metrics.start(Metrics.Operation.COUNT) : null;
+        try {
+            long count = countWords(root, constraint.getLength(), 0, new int[Alphabets.FULL_ALPHABET.length],
+                    constraint.getMissing(), constraint.getFreeFrom(), constraint, probe);
+            if (Metrics.ENABLED)
+                probe.found(count);
+            return count;
+        } finally {
+            if (Metrics.ENABLED)
+                probe.end();
         }
+    }
 
-        // Recursive case: branch is long enough, but not yet at the correct length to
-        // be a word. If any of the children branches can reach the correct length and
-        // are words, then this branch remains. If any of the children branches do not
-        // end up being words, then they are removed.
-        for (Node<Character> child : node.getChildren().values()) {
-            if (branchToWord(start + 1, length, child))
-                flag = true;
-            else {
-                child.setCanLeadToWord(false);
-                removedChildren.add(child.getElement());
+    // Pick a word of a length uniformly at random, by descending from the root into
+    // each child with a probability proportional to its number of words.
+    @Override
+    public String sample(int length, Random random) {
+        if (length < 0 || root.getCount(length) == 0)
+            return null;
+
+        Metrics.Probe probe = Metrics.ENABLED ? Metrics.start(Metrics.Operation.SAMPLE) : null;
+        try {
+            char[] word = new char[length];
+            Node<Character> current = root;
+            int target = random.nextInt(root.getCount(length));
+            for (int depth = 0; depth < length; depth++) {
+                for (Node<Character> child : current.getChildren().values()) {
+                    int count = child.getCount(length - depth - 1);
+                    if (target < count) {
+                        current = child;
+                        break;
+                    }
+                    target -= count;
+                }
+                if (Metrics.ENABLED)
+                    probe.visit();
+                word[depth] = current.getElement();
             }
+            if (Metrics.ENABLED)
+                probe.found();
+            return new String(word);
+        } finally {
+            if (Metrics.ENABLED)
+                probe.end();
         }
-
-        // Remove all children that have a gray.
-        // * Was required to use a list and remove them after the loop. Otherwise, the
-        // * loop would throw a concurrent modification exception.
-        for (Character child : removedChildren)
-            node.getChildren().remove(child);
-
-        // If no children are words, then this branch cannot lead to a word.
-        if (!flag)
-            node.setCanLeadToWord(false);
-
-        return flag;
     }
-    // #endregion
 
-    // #region Branch With No Greys
-    // Comb through the trie and remove any branches that contain a grey letter at
-    // any point in the branch.
-    private boolean branchWithNoGreys(int start, int length, Node<Character> node, Set<Character> greys) {
-        boolean flag = false;
-        List<Character> removedChildren = new ArrayList<Character>();
-
-        // Base case: branch reaches correct length, and no greys are found.
-        if (start == length && !greys.contains(node.getElement()))
-            return true;
-
-        // Base case: Node's element is a grey.
-        if (greys.contains(node.getElement()))
-            return false;
-
-        // Recursive case: A gray has not been found yet, and the branch is has not
-        // reached the correct length. If any of the children branches have a gray,
-        // it is removed. If all branches have a gray, then this branch is removed.
-        for (Node<Character> child : node.getChildren().values()) {
-            if (branchWithNoGreys(start + 1, length, child, greys))
-                flag = true;
-            else {
-                child.setCanLeadToWord(false);
-                removedChildren.add(child.getElement());
+    // #region Get Words
+    // Walk the trie once, applying every constraint as the branch grows. A branch
+    // is abandoned as soon as it contains a grey, misses a green, can no longer fit
+    // the missing yellows, or grows past the word length. The branch is kept in a
+    // single buffer and the yellows found so far in a mask, so a string is only
+    // created for each solution. The probe counts the walk when metrics are enabled.
+    private void getWords(Node<Character> node, char[] word, int depth, int found, Consumer<String> action,
+            WordleQuery query, Metrics.Probe probe) {
+
+        if (Metrics.ENABLED)
+            probe.visit();
+
+        // Base case: the branch is the correct length, keep it if it is a word
+        // containing all the yellows.
+        if (depth == word.length) {
+            if (node.isWord()) {
+                String candidate = new String(word);
+                if (query.accepts(found, candidate)) {
+                    if (Metrics.ENABLED)
+                        probe.found();
+                    action.accept(candidate);
+                }
+                else if (Metrics.ENABLED)
+                    probe.prune(Metrics.Prune.YELLOW);
             }
+            return;
         }
 
-        // Remove all children that have a gray.
-        // * Was required to use a list and remove them after the loop. Otherwise, the
-        // * loop would throw a concurrent modification exception.
-        for (Character child : removedChildren)
-            node.getChildren().remove(child);
-
-        // If all children have a gray, then this branch cannot lead to a word.
-        if (!flag)
-            node.setCanLeadToWord(false);
+        // Recursive case: only continue down the children that respect the greys and
+        // greens at this position and still leave room for the missing yellows.
+        for (Node<Character> child : node.getChildren().values()) {
+            char letter = child.getElement();
+            if (!query.allows(depth, letter)) {
+                if (Metrics.ENABLED)
+                    probe.prune(query.isGreen(depth) ? Metrics.Prune.GREEN : Metrics.Prune.GREY);
+                continue;
+            }
 
-        return flag;
+            int childFound = query.find(found, letter);
+            if (query.canFinish(depth + 1, childFound)) {
+                word[depth] = letter;
+                getWords(child, word, depth + 1, childFound, action, query, probe);
+            }
+            else if (Metrics.ENABLED)
+                probe.prune(Metrics.Prune.YELLOW);
+        }
     }
-    // #endregion
 
-    // #region Greens In Place
-    // Comb through the trie and remove any branches that don't have green letters
-    // in
-    // the correct place.
-    private boolean greensInPlace(int start, int length, Node<Character> node, Map<Integer, Character> greens) {
-        boolean flag = false;
-        List<Character> removedChildren = new ArrayList<Character>();
-
-        // Base case: There are no greens at this point in the branch.
-        if (!greens.containsKey(start))
-            flag = true;
-
-        // Check if start is one of the keys. If it is, check if the element is the same
-        // as the value.
-        if (greens.containsKey(start) && greens.get(start) == node.getElement())
-            flag = true;
-
-        // If start is in the map, but the element is not the same, then this no
-        // branches from this node can lead to a word.
-        if (greens.containsKey(start) && greens.get(start) != node.getElement()) {
-            node.setCanLeadToWord(false);
-            return false;
+    // Walk the trie once for a full constraint. A branch is abandoned as soon as a
+    // letter is not possible at its position, a letter appears more often than its
+    // maximum, or the letters still needed to reach their minimums no longer fit.
+    private void getWords(Node<Character> node, char[] word, int depth, int[] counts, int missing,
+            Consumer<String> action, Constraint constraint, Metrics.Probe probe) {
+
+        if (Metrics.ENABLED)
+            probe.visit();
+
+        // Base case: the branch is the correct length and every minimum is met, keep
+        // it if it is a word.
+        if (depth == word.length) {
+            if (node.isWord() && missing == 0) {
+                if (Metrics.ENABLED)
+                    probe.found();
+                action.accept(new String(word));
+            }
+            return;
         }
 
-        // Loop through children and check if any of them have greens in place.
+        // Recursive case: continue down each child whose letter is kept here.
         for (Node<Character> child : node.getChildren().values()) {
-            if (greensInPlace(start + 1, length, child, greens))
-                flag = true;
-            else {
-                child.setCanLeadToWord(false);
-                removedChildren.add(child.getElement());
+            char letter = child.getElement();
+            int childMissing = step(constraint, counts, missing, depth, letter);
+            if (childMissing < 0) {
+                if (Metrics.ENABLED)
+                    probe.prune(pruned(constraint, counts, depth, letter));
+                continue;
             }
-        }
-
-        // Remove all children that do not have greens in their proper place.
-        // * Was required to use a list and remove them after the loop. Otherwise, the
-        // * loop would throw a concurrent modification exception.
-        for (Character child : removedChildren)
-            node.getChildren().remove(child);
-
-        // If no children have greens in place, then this branch cannot lead to a word.
-        if (!flag)
-            node.setCanLeadToWord(false);
 
-        return flag;
+            word[depth] = letter;
+            getWords(child, word, depth + 1, counts, childMissing, action, constraint, probe);
+            uncount(counts, letter);
+        }
     }
-    // #endregion
 
-    // #region Get Words
-    // Comb through the trie and return all words that are the correct length and
-    // contain all yellow letters.
-    private List<String> getWords(Node<Character> node, String word, List<String> words, int length,
-            List<Character> yellows) {
+    // The walk of getWords for a constraint, counting the solutions instead of
+    // visiting them.
+    private long countWords(Node<Character> node, int length, int depth, int[] counts, int missing, int freeFrom,
+            Constraint constraint, Metrics.Probe probe) {
 
-        boolean flag = true;
+        if (Metrics.ENABLED)
+            probe.visit();
 
-        // Check if the word is missing any yellows.
-        for (Character yellow : yellows) {
-            if (!word.contains(yellow.toString()))
-                flag = false;
-        }
+        // Base case: nothing left to check, every word of the length below counts.
+        if (missing == 0 && depth >= freeFrom)
+            return node.getCount(length - depth);
 
-        // If the word is the correct length and contains all yellows, add it to the
-        // list.
-        if (node.isWord() && word.length() == length && flag) {
-            words.add(word);
-        }
+        // Base case: the branch is the correct length.
+        if (depth == length)
+            return node.isWord() && missing == 0 ? 1 : 0;
 
-        // Recursive case: The word is not the correct length yet. Continue down the
-        // branch.
+        // Recursive case: count under each child whose letter is kept here.
+        long found = 0;
         for (Node<Character> child : node.getChildren().values()) {
-            if (child.canLeadToWord())
-                getWords(child, word + child.getElement(), words, length, yellows);
-        }
+            char letter = child.getElement();
+            int childMissing = step(constraint, counts, missing, depth, letter);
+            if (childMissing < 0) {
+                if (Metrics.ENABLED)
+                    probe.prune(pruned(constraint, counts, depth, letter));
+                continue;
+            }
 
-        return words;
+            found += countWords(child, length, depth + 1, counts, childMissing, freeFrom, constraint, probe);
+            uncount(counts, letter);
+        }
+        return found;
     }
-    // #endregion
-}
 
-class Node<T> {
-    private T element;
-    private Map<T, Node<T>> children;
-    private boolean isWord = false;
-    private boolean canLeadToWord = true;
+    // The test of a child shared by the walks of a constraint. The branch is
+    // abandoned if the letter is not possible at its position, would appear more
+    // often than its maximum, or the letters still needed to reach their minimums
+    // would no longer fit. Otherwise the letter is counted, to be taken back with
+    // uncount() once the child is done, and the letters still missing below the
+    // child are returned. Returns -1 if the branch is abandoned.
+    private static int step(Constraint constraint, int[] counts, int missing, int depth, char letter) {
+        if (!constraint.allows(depth, letter))
+            return -1;
+
+        int index = WordleQuery.letter(letter);
+        if (index >= 0) {
+            int count = counts[index] + 1;
+            if (count > constraint.max(index))
+                return -1;
+            if (count <= constraint.min(index))
+                missing--;
+        }
+        if (missing > constraint.getLength() - depth - 1)
+            return -1;
 
-    public Node(T element) {
-        this.element = element;
-        this.children = new HashMap<T, Node<T>>();
+        if (index >= 0)
+            counts[index]++;
+        return missing;
     }
 
-    public T getElement() {
-        return element;
+    private static void uncount(int[] counts, char letter) {
+        int index = WordleQuery.letter(letter);
+        if (index >= 0)
+            counts[index]--;
     }
 
-    public void setElement(T element) {
-        this.element = element;
-    }
+    // Why step() abandoned a letter, for the metrics.
+    private static Metrics.Prune pruned(Constraint constraint, int[] counts, int depth, char letter) {
+        if (!constraint.allows(depth, letter))
+            return constraint.getMax(letter) == 0 ? Metrics.Prune.GREY
+                    : constraint.isGreen(depth) ? Metrics.Prune.GREEN : Metrics.Prune.POSITION;
 
-    public Map<T, Node<T>> getChildren() {
-        return children;
+        int index = WordleQuery.letter(letter);
+        return index >= 0 && counts[index] >= constraint.max(index) ? Metrics.Prune.COUNT : Metrics.Prune.YELLOW;
     }
+    // #endregion
 
-    public void addChild(T element) {
-        if (!children.containsKey(element))
-            children.put(element, new Node<T>(element));
-    }
+    // #region Walk Words
+    // The walk of getWords for a constraint, with the recursion unrolled into a
+    // stack of child iterators so it can stop after any solution and resume later.
+    private static class Walk implements Iterator<String> {
+
+        private final Constraint constraint;
+        private final char[] word;
+        private final int[] counts;
+
+        // per depth: the children left to try, the minimum letters still missing,
+        // and the letter index counted for the branch (-1 if none)
+        private final List<Iterator<Node<Character>>> children;
+        private final int[] missing;
+        private final int[] counted;
+        private int depth;
+
+        private boolean ready;
+
+        private Walk(Node<Character> root, Constraint constraint) {
+            int length = constraint.getLength();
+            this.constraint = constraint;
+            this.word = new char[length];
+            this.counts = new int[Alphabets.FULL_ALPHABET.length];
+            this.children = new ArrayList<>();
+            this.missing = new int[length + 1];
+            this.counted = new int[length + 1];
+
+            missing[0] = constraint.getMissing();
+            counted[0] = -1;
+            children.add(root.getChildren().values().iterator());
+
+            // the only possible solution of length 0 is the root itself
+            if (length == 0) {
+                depth = -1;
+                ready = root.isWord() && missing[0] == 0;
+            }
+        }
 
-    public boolean isWord() {
-        return isWord;
-    }
+        // Move to the next solution, leaving it in the buffer. Each move is a call
+        // of its own for the metrics.
+        private boolean advance() {
+            if (!Metrics.ENABLED)
+                return advance(null);
+
+            Metrics.Probe probe = Metrics.start(Metrics.Operation.STREAM);
+            try {
+                boolean found = advance(probe);
+                if (found)
+                    probe.found();
+                return found;
+            } finally {
+                probe.end();
+            }
+        }
 
-    public void setWord(boolean isWord) {
-        this.isWord = isWord;
-    }
+        private boolean advance(Metrics.Probe probe) {
+            if (ready) {
+                ready = false;
+                return true;
+            }
 
-    public boolean canLeadToWord() {
-        return canLeadToWord;
-    }
+            while (depth >= 0) {
+                // take back the letter of the previous branch at this depth
+                if (counted[depth] >= 0) {
+                    counts[counted[depth]]--;
+                    counted[depth] = -1;
+                }
+
+                Iterator<Node<Character>> iterator = children.get(depth);
+                if (!iterator.hasNext()) {
+                    depth--;
+                    continue;
+                }
+
+                Node<Character> child = iterator.next();
+                char letter = child.getElement();
+                int childMissing = step(constraint, counts, missing[depth], depth, letter);
+                if (childMissing < 0) {
+                    if (Metrics.ENABLED)
+                        probe.prune(pruned(constraint, counts, depth, letter));
+                    continue;
+                }
+
+                if (Metrics.ENABLED)
+                    probe.visit();
+                counted[depth] = WordleQuery.letter(letter);
+                word[depth] = letter;
+                if (depth + 1 == word.length) {
+                    if (child.isWord() && childMissing == 0)
+                        return true;
+                    continue;
+                }
+
+                depth++;
+                if (children.size() == depth)
+                    children.add(child.getChildren().values().iterator());
+                else
+                    children.set(depth, child.getChildren().values().iterator());
+                missing[depth] = childMissing;
+                counted[depth] = -1;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready)
+                ready = advance();
+            return ready;
+        }
 
-    public void setCanLeadToWord(boolean flag) {
-        this.canLeadToWord = flag;
+        @Override
+        public String next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ready = false;
+            return new String(word);
+        }
     }
-}
\ No newline at end of file
+    // #endregion
+}
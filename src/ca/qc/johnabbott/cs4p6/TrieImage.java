@@ -0,0 +1,180 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary image of a {@link FrozenTrie}, so a lexicon can be memory-mapped at startup instead of rebuilt from text.
+ *
+ * Layout, little-endian:
+ * <pre>
+ *   int    magic "WTRI"
+ *   int    version
+ *   long   CRC32 checksum of the word files the image was built from
+ *   int    word count
+ *   int    node count n
+ *   int    alphabet size a, the header is padded to 8 bytes
+ *   char[a] alphabet, padded to 8 bytes
+ *   long[(n + 63) / 64] word bits
+ *   int[n + 1] first child of each node, padded to 8 bytes
+ *   char[n] node labels
+ * </pre>
+ * A loaded image answers queries straight from the mapped file, no nodes are created.
+ */
+public class TrieImage {
+
+    // hide the constructor --> utility class
+    private TrieImage() {};
+
+    private static final int MAGIC = 0x57545249;
+    private static final int VERSION = 2;
+    private static final int HEADER = 4 + 4 + 8 + 4 + 4 + 4;
+
+    /**
+     * Build a trie from word files and write its image.
+     * @param image the image file to write.
+     * @param files the word files.
+     * @return the frozen trie that was written.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static FrozenTrie build(Path image, String... files) throws IOException {
+        Trie trie = new Trie();
+        LexiconLoader.load(trie, files);
+        FrozenTrie frozen = trie.freeze();
+        write(frozen, checksum(files), image);
+        return frozen;
+    }
+
+    /**
+     * Write the image of a frozen trie.
+     * @param trie the frozen trie.
+     * @param checksum the checksum of its word files, see {@link #checksum(String...)}.
+     * @param image the image file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(FrozenTrie trie, long checksum, Path image) throws IOException {
+        char[] alphabet = trie.getAlphabet();
+        int nodes = trie.size();
+        int words = trie.getWords().limit();
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size(alphabet.length, nodes)).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(checksum).putInt(trie.getWordCount()).putInt(nodes)
+                .putInt(alphabet.length);
+        buffer.position(pad(HEADER));
+        for (char letter : alphabet)
+            buffer.putChar(letter);
+        buffer.position(pad(HEADER) + pad(alphabet.length * 2));
+
+        buffer.asLongBuffer().put(trie.getWords());
+        buffer.position(buffer.position() + words * 8);
+        buffer.asIntBuffer().put(trie.getFirstChild());
+        buffer.position(buffer.position() + pad((nodes + 1) * 4));
+        buffer.asCharBuffer().put(trie.getLabels());
+
+        Files.write(image, buffer.array());
+    }
+
+    /**
+     * Memory-map an image.
+     * @param image the image file.
+     * @return a frozen trie reading from the mapped file.
+     * @throws IOException if the file cannot be read or is not a valid image.
+     */
+    public static FrozenTrie load(Path image) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException(image + " is not a trie image.");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(image + " has unsupported version " + buffer.getInt(4) + ".");
+
+        int nodes = buffer.getInt(20);
+        int alphabet = buffer.getInt(24);
+        if (nodes < 0 || alphabet < 0 || buffer.limit() < size(alphabet, nodes))
+            throw new IOException(image + " is truncated or corrupt.");
+        int words = (nodes + Long.SIZE - 1) / Long.SIZE;
+
+        int position = pad(HEADER) + pad(alphabet * 2);
+        ByteBuffer wordBits = slice(buffer, position, words * 8);
+        position += words * 8;
+        ByteBuffer firstChild = slice(buffer, position, (nodes + 1) * 4);
+        position += pad((nodes + 1) * 4);
+        ByteBuffer labels = slice(buffer, position, nodes * 2);
+
+        return new FrozenTrie(labels.asCharBuffer(), firstChild.asIntBuffer(), wordBits.asLongBuffer());
+    }
+
+    /**
+     * Load an image, first rebuilding it if it is missing or was built from different word files.
+     * @param image the image file.
+     * @param files the word files.
+     * @return a frozen trie reading from the mapped file.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static FrozenTrie loadOrBuild(Path image, String... files) throws IOException {
+        if (!isCurrent(image, files))
+            build(image, files);
+        return load(image);
+    }
+
+    /**
+     * Test if an image exists and was built from the current contents of word files.
+     * @param image the image file.
+     * @param files the word files.
+     * @return true if the image is up to date.
+     * @throws IOException if a word file cannot be read.
+     */
+    public static boolean isCurrent(Path image, String... files) throws IOException {
+        if (!Files.isRegularFile(image) || Files.size(image) < HEADER)
+            return false;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        return header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getLong(8) == checksum(files);
+    }
+
+    /**
+     * Checksum the contents of word files.
+     * @param files the word files.
+     * @return the CRC32 of the files, in order.
+     * @throws IOException if a file cannot be read.
+     */
+    public static long checksum(String... files) throws IOException {
+        CRC32 crc = new CRC32();
+        for (String file : files) {
+            try (FileChannel channel = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+        return crc.getValue();
+    }
+
+    // round a section size up to 8 bytes, so the long and int sections stay aligned
+    private static int pad(int size) {
+        return (size + 7) & ~7;
+    }
+
+    // the size of the image of a trie, in bytes
+    private static long size(int alphabet, int nodes) {
+        long words = ((long) nodes + Long.SIZE - 1) / Long.SIZE;
+        return pad(HEADER) + (alphabet * 2L + 7 & ~7L) + words * 8 + ((nodes + 1L) * 4 + 7 & ~7L) + nodes * 2L;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int size) {
+        return buffer.duplicate().position(position).limit(position + size).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -13,6 +13,21 @@ import java.util.*;
  */
 public class Wordle {
 
+    // pattern code digits
+    private static final int GREY_DIGIT = 0;
+    private static final int YELLOW_DIGIT = 1;
+    private static final int GREEN_DIGIT = 2;
+
+    // 3^19 is the largest power of 3 that fits in an int
+    private static final int MAX_PATTERN_LENGTH = 19;
+
+    private static final int ALPHABET_SIZE = Alphabets.FULL_ALPHABET.length;
+
+    /**
+     * The number of guesses of a game.
+     */
+    public static final int MAX_GUESSES = 6;
+
     /**
      * Represent the wordle guess colors and their emojis
      */
@@ -41,25 +56,30 @@ public class Wordle {
 
         private int guessNumber;
         private boolean correct;
+        private int pattern;
         private String message;
 
         private Set<Character> greys;
         private Map<Integer, Character> greens;
         private List<Character> yellows;
+        private Constraint constraint;
 
         // create a result
-        private Result(int guessNumber, boolean correct, String message, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows) {
+        private Result(int guessNumber, boolean correct, int pattern, String message, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows, Constraint constraint) {
             this.guessNumber = guessNumber;
             this.correct = correct;
+            this.pattern = pattern;
             this.message = message;
             this.greys = greys;
             this.greens = greens;
             this.yellows = yellows;
+            this.constraint = constraint;
         }
 
         private Result(int guessNumber, boolean correct, String message) {
             this.guessNumber = guessNumber;
             this.correct = correct;
+            this.pattern = -1;
             this.message = message;
             this.greys = new HashSet<>();
             this.greens = new HashMap<>();
@@ -74,6 +94,14 @@ public class Wordle {
             return correct;
         }
 
+        /**
+         * @return the pattern code of the guess, see {@link Wordle#score(CharSequence, CharSequence)}, or -1 if
+         * the guess was not scored or the word is too long for a pattern code.
+         */
+        public int getPattern() {
+            return pattern;
+        }
+
         public String getMessage() {
             return message;
         }
@@ -89,9 +117,21 @@ public class Wordle {
         public Set<Character> getGreys() {
             return greys;
         }
+
+        /**
+         * @return everything the guesses so far reveal about the word, without the simplifications of the greys,
+         * greens and yellows, or null if the guess was not scored.
+         */
+        public Constraint getConstraint() {
+            return constraint;
+        }
     }
 
+    // colors by pattern code digit
+    private static final Color[] DIGITS = { Color.GREY, Color.YELLOW, Color.GREEN };
+
     private int currentGuess;
+    private final int maxGuesses;
     private final String wordStr;
     private final char[] word;
 
@@ -100,17 +140,32 @@ public class Wordle {
     private Set<Character> greys;
     private Map<Integer, Character> greens;
     private List<Character> yellows;
+    private Constraint constraint;
 
     /**
      * Construct a wordle puzzle with a set word.
      * @param wordStr
      */
     public Wordle(String wordStr) {
+        this(wordStr, MAX_GUESSES);
+    }
+
+    /**
+     * Construct a wordle puzzle with a set word and number of guesses, for games of several boards.
+     * @param wordStr the word.
+     * @param maxGuesses the number of guesses.
+     */
+    public Wordle(String wordStr, int maxGuesses) {
+        if (maxGuesses < 1)
+            throw new IllegalArgumentException("There must be at least one guess.");
+
+        this.maxGuesses = maxGuesses;
         this.wordStr = wordStr;
         this.word = wordStr.toCharArray();
         this.greys = new HashSet<>();
         this.greens = new HashMap<>();
         this.yellows = new ArrayList<>();
+        this.constraint = new Constraint(word.length);
     }
 
     /**
@@ -134,13 +189,26 @@ public class Wordle {
      * @return
      */
     public boolean isDone() {
-        return currentGuess > 6;
+        return currentGuess > maxGuesses;
     }
 
     public Result guess(String guessStr) {
+        if (!Metrics.ENABLED)
+            return play(guessStr);
+
+        Metrics.Probe probe = Metrics.start(Metrics.Operation.GUESS);
+        try {
+            return play(guessStr);
+        } finally {
+            probe.end();
+        }
+    }
+
+    // score a guess and update the state of the game.
+    private Result play(String guessStr) {
         if (guessStr.length() != wordStr.length())
             return new Result(currentGuess, false, "Guess isn't long enough.");
-        else if (currentGuess == 6)
+        else if (currentGuess == maxGuesses)
             return new Result(currentGuess, false, "Out of guesses.");
         else if (!lexicon.contains(guessStr))
             return new Result(currentGuess, false, "Guess isn't a dictionary word.");
@@ -150,63 +218,26 @@ public class Wordle {
 
         char[] guess = guessStr.toCharArray();
 
-        // start with all colors unknown
-        Color[] colors = new Color[word.length];
-        Arrays.fill(colors, Color.UNKNOWN);
-
-        // determine if the guess it correct
-        // set green and grey colors
-        boolean correct = true;
-        for (int i = 0; i < word.length; i++) {
-            if (word[i] == guess[i])
-                colors[i] = Color.GREEN;
-            else if(!find(word, guess[i])) {
-                colors[i] = Color.GREY;
-                // add the character to the set of greys now since we will
-                //switch some yellows to grey below
-                greys.add(guess[i]);
-                correct = false;
-            }
-            else  // incorrect character place
-                correct = false;
+        // score the guess, the same way batch simulations do. Words too long for a pattern code are scored
+        // letter by letter instead.
+        int pattern;
+        Color[] colors;
+        if (word.length > MAX_PATTERN_LENGTH) {
+            pattern = -1;
+            colors = colorsSlowly(guessStr, wordStr);
         }
-
-        // count all non-green character occurrences to figure out how many yellows we need.
-        Map<Character, Integer> nonGreenCounts = new HashMap<>();
-        for(int i=0; i< word.length; i++) {
-            int tmp = 0;
-            switch (colors[i]) {
-                case YELLOW:
-                    throw new IllegalStateException();
-                case UNKNOWN:
-                case GREY:
-                    tmp = 1;
-                    break;
-                case GREEN:
-            }
-            if(nonGreenCounts.containsKey(word[i]))
-                tmp += nonGreenCounts.get(word[i]);
-            nonGreenCounts.put(word[i], tmp);
+        else {
+            pattern = score(guessStr, wordStr);
+            colors = colors(pattern, word.length);
         }
+        boolean correct = guessStr.equals(wordStr);
+        constraint = constraint.with(guessStr, colors);
 
-        // set the yellow colors and remaining greys. Some characters are grey not yellow because
-        // of how many letters are needed in the puzzle.
+        // add the characters that are not in the word at all to the set of greys, some greys
+        // are only grey because of how many letters are needed in the puzzle.
         for (int i = 0; i < word.length; i++) {
-            if(colors[i] == Color.UNKNOWN) {
-                if(nonGreenCounts.containsKey(guess[i])) {
-                    int tmp = nonGreenCounts.get(guess[i]);
-
-                    // if we still have possible placements for these characters, they are yellow
-                    if(tmp > 0) {
-                        colors[i] = Color.YELLOW;
-                        nonGreenCounts.put(guess[i], tmp - 1);  // one less character to consider
-                    }
-                    else
-                        colors[i] = Color.GREY;  // no more correct positions to fill so it's green.
-                }
-                else
-                    colors[i] = Color.GREY;  // not sure if this can happen, but being cautious.
-            }
+            if (colors[i] == Color.GREY && !find(word, guess[i]))
+                greys.add(guess[i]);
         }
 
         // update yellow list and green map
@@ -225,12 +256,153 @@ public class Wordle {
             }
         }
 
-        // create a pattern for the user to see their guess
-        StringBuilder pattern = new StringBuilder();
-        for (Color color : colors) pattern.append(color);
-
         // return the result
-        return new Result(currentGuess, correct, pattern.toString(), Set.copyOf(greys), Map.copyOf(greens), List.copyOf(yellows));
+        return new Result(currentGuess, correct, pattern, toString(colors), Set.copyOf(greys), Map.copyOf(greens), List.copyOf(yellows), constraint);
+    }
+
+    /**
+     * Score a guess against an answer as a pattern code. The color of letter i is base-3 digit i of the code,
+     * least significant first: 0 for grey, 1 for yellow and 2 for green.
+     * @param guess the guess.
+     * @param answer the answer, the same length as the guess.
+     * @return the pattern code.
+     */
+    public static int score(CharSequence guess, CharSequence answer) {
+        return score(guess, answer, new int[ALPHABET_SIZE]);
+    }
+
+    /**
+     * Score a guess against an answer as a pattern code, without allocating.
+     * @param guess the guess.
+     * @param answer the answer, the same length as the guess.
+     * @param counts scratch space of {@link Alphabets#FULL_ALPHABET} size, all zeros. It is left all zeros.
+     * @return the pattern code.
+     */
+    public static int score(CharSequence guess, CharSequence answer, int[] counts) {
+        int length = answer.length();
+        if (guess.length() != length)
+            throw new IllegalArgumentException("Guess and answer lengths differ.");
+        if (length > MAX_PATTERN_LENGTH)
+            throw new IllegalArgumentException("Words longer than " + MAX_PATTERN_LENGTH + " cannot be scored.");
+
+        for (int i = 0; i < length; i++) {
+            if (letter(guess.charAt(i)) < 0 || letter(answer.charAt(i)) < 0)
+                return scoreSlowly(guess, answer);
+        }
+
+        // set the greens and count the letters of the answer that are not green, these are the yellows available.
+        int pattern = 0;
+        int digit = 1;
+        int greens = 0;
+        for (int i = 0; i < length; i++, digit *= 3) {
+            if (guess.charAt(i) == answer.charAt(i)) {
+                pattern += GREEN_DIGIT * digit;
+                greens |= 1 << i;
+            }
+            else
+                counts[letter(answer.charAt(i))]++;
+        }
+
+        // set the yellows from left to right while letters are available, the rest stays grey.
+        digit = 1;
+        for (int i = 0; i < length; i++, digit *= 3) {
+            if ((greens & (1 << i)) == 0 && counts[letter(guess.charAt(i))] > 0) {
+                pattern += YELLOW_DIGIT * digit;
+                counts[letter(guess.charAt(i))]--;
+            }
+        }
+
+        // leave the scratch space clean for the next call
+        for (int i = 0; i < length; i++)
+            counts[letter(answer.charAt(i))] = 0;
+
+        return pattern;
+    }
+
+    // score words with characters outside the alphabet by searching instead of counting.
+    private static int scoreSlowly(CharSequence guess, CharSequence answer) {
+        Color[] colors = colorsSlowly(guess, answer);
+        int pattern = 0;
+        for (int i = colors.length - 1; i >= 0; i--)
+            pattern = pattern * 3 + (colors[i] == Color.GREEN ? GREEN_DIGIT
+                    : colors[i] == Color.YELLOW ? YELLOW_DIGIT : GREY_DIGIT);
+        return pattern;
+    }
+
+    // the colors of a guess of any length, searching for each yellow.
+    private static Color[] colorsSlowly(CharSequence guess, CharSequence answer) {
+        int length = answer.length();
+        boolean[] used = new boolean[length];
+        Color[] colors = new Color[length];
+
+        for (int i = 0; i < length; i++) {
+            colors[i] = Color.GREY;
+            if (guess.charAt(i) == answer.charAt(i)) {
+                colors[i] = Color.GREEN;
+                used[i] = true;
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (colors[i] == Color.GREEN)
+                continue;
+            for (int j = 0; j < length; j++) {
+                if (!used[j] && guess.charAt(i) == answer.charAt(j)) {
+                    colors[i] = Color.YELLOW;
+                    used[j] = true;
+                    break;
+                }
+            }
+        }
+        return colors;
+    }
+
+    /**
+     * Decode a pattern code into colors.
+     * @param pattern the pattern code.
+     * @param length the word length.
+     * @return the color of each letter.
+     */
+    public static Color[] colors(int pattern, int length) {
+        Color[] colors = new Color[length];
+        for (int i = 0; i < length; i++, pattern /= 3)
+            colors[i] = DIGITS[pattern % 3];
+        return colors;
+    }
+
+    /**
+     * Decode a pattern code into emojis.
+     * @param pattern the pattern code.
+     * @param length the word length.
+     * @return the pattern for the user to see.
+     */
+    public static String toString(int pattern, int length) {
+        return toString(colors(pattern, length));
+    }
+
+    // the emojis of colors.
+    private static String toString(Color[] colors) {
+        StringBuilder emojis = new StringBuilder();
+        for (Color color : colors)
+            emojis.append(color);
+        return emojis.toString();
+    }
+
+    /**
+     * @param length the word length.
+     * @return the pattern code of a correct guess, all greens.
+     */
+    public static int solved(int length) {
+        int pattern = 0;
+        for (int i = 0; i < length; i++)
+            pattern = pattern * 3 + GREEN_DIGIT;
+        return pattern;
+    }
+
+    // index of a character in the alphabet, -1 if it is outside it.
+    private static int letter(char c) {
+        int letter = c - 'a';
+        return letter >= 0 && letter < ALPHABET_SIZE ? letter : -1;
     }
 
     // simple linear find
@@ -1,8 +1,8 @@
 package ca.qc.johnabbott.cs4p6;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Console Wordle
@@ -11,25 +11,20 @@ public class WordleApp {
 
     public static final boolean CHEAT_MODE = true;
     public static final int LENGTH = 5;
+    public static final int SUGGESTIONS = 5;
+    public static final int SHOWN_SOLUTIONS = 20;
+    public static final long SUGGESTION_BUDGET_MILLIS = 500;
 
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
 
-        Lexicon lexicon = new Trie();
-        List<String> words = new ArrayList<>();
+        Lexicon lexicon = Lexicons.fromArgs(args);
 
         // load words into trie
-        Scanner scanner = new Scanner(new FileReader(Alphabets.LEXICON_FULL));
-        while (scanner.hasNext()) {
-            String word = scanner.next();
-            lexicon.add(word);
-            if (word.length() == LENGTH)
-                words.add(word);
-        }
-        scanner.close();
+        LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
 
         // chose a random word
         Random random = new Random();
-        String chosen = words.get(random.nextInt(words.size()));
+        String chosen = lexicon.sample(LENGTH, random);
 
         if (CHEAT_MODE)
             System.out.println("Word is: " + chosen);
@@ -38,6 +33,14 @@ public class WordleApp {
         Wordle wordle = new Wordle(chosen);
         wordle.setLexicon(lexicon);
 
+        // possible solutions, narrowed after each guess
+        CandidateSet candidates = new CandidateSet(lexicon, LENGTH);
+
+        // suggest guesses in cheat mode
+        GuessAdvisor advisor = null;
+        if (CHEAT_MODE)
+            advisor = new GuessAdvisor(FeedbackMatrix.build(lexicon));
+
         Scanner stdin = new Scanner(System.in);
 
         while (!wordle.isDone()) {
@@ -50,12 +53,22 @@ public class WordleApp {
             System.out.println(result.getMessage());
 
             if (CHEAT_MODE) {
-                System.out.println(result.getGreys());
-                System.out.println(result.getGreens());
-                System.out.println(result.getYellows());
-                List<String> solutions = lexicon.wordle(LENGTH, result.getGreys(), result.getGreens(),
-                        result.getYellows());
-                System.out.println("Possible solutions: " + flatten(solutions));
+                candidates.narrow(result);
+
+                // show the count and the first few solutions, without listing them all
+                Constraint constraint = result.getConstraint();
+                if (constraint != null) {
+                    System.out.println(constraint);
+                    List<String> shown = lexicon.wordleStream(constraint).limit(SHOWN_SOLUTIONS)
+                            .collect(Collectors.toList());
+                    long count = lexicon.countWordle(constraint);
+                    System.out.println("Possible solutions (" + count + "): " + flatten(shown)
+                            + (count > shown.size() ? ", ..." : ""));
+                }
+
+                List<GuessAdvisor.Guess> suggestions = advisor.rank(candidates.getWords(), SUGGESTIONS,
+                        SUGGESTION_BUDGET_MILLIS);
+                System.out.println("Suggested guesses: " + flatten(suggestions));
             }
 
             if (result.isCorrect()) {
@@ -65,11 +78,11 @@ public class WordleApp {
         }
     }
 
-    private static String flatten(List<String> list) {
+    private static String flatten(List<?> list) {
         StringJoiner joiner;
         joiner = new StringJoiner(", ");
-        for (String s : list)
-            joiner.add(s);
+        for (Object s : list)
+            joiner.add(s.toString());
         return joiner.toString();
     }
 }
@@ -0,0 +1,170 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load generator for {@link WordleServer}: clients play games as fast as they can, always taking the hint, and
+ * the sustained games per second and latencies are reported.
+ *
+ * Without a URL, a server is started in this JVM on a free port.
+ *
+ * Usage: WordleLoad [clients] [seconds] [url]
+ */
+public class WordleLoad {
+
+    public static final int DEFAULT_CLIENTS = 16;
+    public static final int DEFAULT_SECONDS = 10;
+
+    // the latencies measured by one client, in nanoseconds
+    private static class Latencies {
+        private final List<Long> games = new ArrayList<>();
+        private final List<Long> requests = new ArrayList<>();
+        private int unsolved;
+    }
+
+    private final String url;
+
+    private WordleLoad(String url) {
+        this.url = url;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+
+        WordleServer server = null;
+        String url;
+        if (args.length > 2)
+            url = args[2];
+        else {
+            Lexicon lexicon = new Trie();
+            LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+            server = new WordleServer(lexicon, DecisionTree.build(FeedbackMatrix.build(lexicon)),
+                    WordleServer.IDLE_MILLIS);
+            server.start(0);
+            url = "http://localhost:" + server.getPort();
+        }
+
+        try {
+            System.out.printf("%d clients for %d s against %s, %d cores\n", clients, seconds, url,
+                    Runtime.getRuntime().availableProcessors());
+            new WordleLoad(url).run(clients, seconds * 1_000_000_000L);
+        } finally {
+            if (server != null)
+                server.stop();
+        }
+    }
+
+    private void run(int clients, long durationNanos) {
+        // clients mostly wait on the server, so each gets its own thread
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            long start = System.nanoTime();
+            long deadline = start + durationNanos;
+
+            List<Future<Latencies>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++)
+                futures.add(executor.submit(() -> play(deadline)));
+
+            List<Long> games = new ArrayList<>();
+            List<Long> requests = new ArrayList<>();
+            int unsolved = 0;
+            for (Future<Latencies> future : futures) {
+                Latencies latencies = future.get();
+                games.addAll(latencies.games);
+                requests.addAll(latencies.requests);
+                unsolved += latencies.unsolved;
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d games (%d unsolved), %.1f games/s, %.1f requests/s\n", games.size(), unsolved,
+                    games.size() / elapsed, requests.size() / elapsed);
+            System.out.printf("game    p50 %7.2f ms, p99 %7.2f ms\n", percentile(games, 50), percentile(games, 99));
+            System.out.printf("request p50 %7.2f ms, p99 %7.2f ms\n", percentile(requests, 50),
+                    percentile(requests, 99));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // play games until the deadline, following the hints.
+    private Latencies play(long deadline) throws IOException {
+        Latencies latencies = new Latencies();
+        while (System.nanoTime() - deadline < 0) {
+            long start = System.nanoTime();
+            String game = field(request(latencies, "POST", "/game"), "game");
+
+            boolean correct = false;
+            for (int i = 0; i < Wordle.MAX_GUESSES && !correct; i++) {
+                // no hint when no word is left, the game cannot be won
+                String hint = field(request(latencies, "GET", "/hint?game=" + game), "hint");
+                if (hint == null)
+                    break;
+                correct = Boolean.parseBoolean(field(request(latencies, "POST", "/guess?game=" + game + "&word="
+                        + hint), "correct"));
+            }
+
+            latencies.games.add(System.nanoTime() - start);
+            if (!correct)
+                latencies.unsolved++;
+        }
+        return latencies;
+    }
+
+    // send a request, the connection is kept alive for the next one.
+    private String request(Latencies latencies, String method, String path) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setRequestMethod(method);
+
+        int status = connection.getResponseCode();
+        InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream();
+        String body;
+        try (in) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        latencies.requests.add(System.nanoTime() - start);
+
+        if (status != 200)
+            throw new IOException(method + " " + path + " failed: " + body);
+        return body;
+    }
+
+    // the value of a field of a flat JSON object, without its quotes, or null if it is null.
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\": (\"?)([^\",}]*)").matcher(json);
+        if (!matcher.find())
+            throw new IllegalStateException("No \"" + name + "\" in " + json);
+        if (matcher.group(1).isEmpty() && matcher.group(2).equals("null"))
+            return null;
+        return matcher.group(2);
+    }
+
+    // a percentile of latencies in nanoseconds, in milliseconds.
+    private static double percentile(List<Long> latencies, double percentile) {
+        if (latencies.isEmpty())
+            return 0;
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
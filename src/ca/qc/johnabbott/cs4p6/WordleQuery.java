@@ -0,0 +1,145 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The constraints of a single wordle query, compiled into letter masks so they can be checked one letter at a
+ * time while descending a lexicon. Letters of {@link Alphabets#FULL_ALPHABET} are checked with masks, any other
+ * character falls back on the original sets.
+ *
+ * A query is created per call and never shared, so lexicons stay read-only while answering.
+ */
+final class WordleQuery {
+
+    private static final int ALPHABET_SIZE = Alphabets.FULL_ALPHABET.length;
+
+    private final int length;
+
+    // letters allowed at each position: greens restrict a position to one letter, greys remove letters everywhere
+    private final int[] allowed;
+    private final char[] greens;
+    private final Set<Character> greys;
+
+    // letters that must appear somewhere in the word
+    private final int yellows;
+    private final List<Character> otherYellows;
+
+    WordleQuery(int length, Set<Character> greys, Map<Integer, Character> greens, List<Character> yellows) {
+        this.length = length;
+        this.greys = greys;
+        this.allowed = new int[Math.max(length, 0)];
+        this.greens = new char[allowed.length];
+
+        int greyMask = 0;
+        for (Character grey : greys) {
+            int letter = letter(grey);
+            if (letter >= 0)
+                greyMask |= 1 << letter;
+        }
+
+        for (int i = 0; i < allowed.length; i++) {
+            Character green = greens.get(i);
+            if (green == null)
+                allowed[i] = ~greyMask;
+            else {
+                this.greens[i] = green;
+                int letter = letter(green);
+                allowed[i] = letter >= 0 ? (1 << letter) & ~greyMask : 0;
+            }
+        }
+
+        int yellowMask = 0;
+        this.otherYellows = new ArrayList<>();
+        for (Character yellow : yellows) {
+            int letter = letter(yellow);
+            if (letter >= 0)
+                yellowMask |= 1 << letter;
+            else
+                otherYellows.add(yellow);
+        }
+        this.yellows = yellowMask;
+    }
+
+    /**
+     * Index of a character in {@link Alphabets#FULL_ALPHABET}.
+     * @param c the character.
+     * @return the index, or -1 if the character is not a lowercase letter.
+     */
+    static int letter(char c) {
+        int letter = c - 'a';
+        return letter >= 0 && letter < ALPHABET_SIZE ? letter : -1;
+    }
+
+    /**
+     * @return the word length searched for.
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Test a letter against the grey and green constraints.
+     * @param position the position of the letter in the word.
+     * @param c the letter.
+     * @return true if the letter can appear at this position.
+     */
+    boolean allows(int position, char c) {
+        if (position >= allowed.length)
+            return false;
+
+        int letter = letter(c);
+        if (letter < 0)
+            return (greens[position] == 0 || greens[position] == c) && !greys.contains(c);
+
+        return (allowed[position] & (1 << letter)) != 0;
+    }
+
+    /**
+     * @param position a position in the word.
+     * @return true if the letter at the position is known.
+     */
+    boolean isGreen(int position) {
+        return greens[position] != 0;
+    }
+
+    /**
+     * Record a letter against the yellows found so far.
+     * @param found mask of the yellows found so far.
+     * @param c the letter.
+     * @return the updated mask.
+     */
+    int find(int found, char c) {
+        int letter = letter(c);
+        return letter < 0 ? found : found | (yellows & (1 << letter));
+    }
+
+    /**
+     * Test if the yellows still missing can fit in the rest of the word.
+     * @param position the number of letters placed so far.
+     * @param found mask of the yellows found so far.
+     * @return true if a word can still be completed.
+     */
+    boolean canFinish(int position, int found) {
+        return Integer.bitCount(yellows & ~found) <= length - position;
+    }
+
+    /**
+     * Test a complete word against the yellow constraints.
+     * @param found mask of the yellows found in the word.
+     * @param word the complete word.
+     * @return true if the word contains every yellow.
+     */
+    boolean accepts(int found, CharSequence word) {
+        if ((yellows & ~found) != 0)
+            return false;
+
+        for (Character yellow : otherYellows) {
+            if (word.toString().indexOf(yellow) < 0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -1,25 +1,20 @@
 package ca.qc.johnabbott.cs4p6;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
 import java.util.*;
 
 public class WordleSample {
 
     public static void main(String[] args) {
 
-        Scanner lexiconFile = null;
+        Lexicon lexicon = Lexicons.fromArgs(args);
         try {
-            lexiconFile = new Scanner(new FileReader(Alphabets.LEXICON_FULL));
-        } catch (FileNotFoundException e) {
+            LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+        } catch (IOException e) {
             e.printStackTrace();
             return;
         }
 
-        Lexicon lexicon = new Trie();
-        while (lexiconFile.hasNext())
-            lexicon.add(lexiconFile.next());
-
         Map<Integer, Character> greens = new HashMap<>();
         greens.put(0, 's');
         greens.put(2, 'o');
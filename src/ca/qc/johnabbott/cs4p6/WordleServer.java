@@ -0,0 +1,341 @@
+package ca.qc.johnabbott.cs4p6;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wordle as a service, on the JDK HTTP server. Every request runs as its own task, on a virtual thread when the
+ * JVM supports them, see {@link TaskExecutors}. Games share one read-only lexicon and {@link DecisionTree}.
+ *
+ * Endpoints, answering JSON:
+ * <ul>
+ *     <li>POST /game starts a game: {"game": id, "length": 5}</li>
+ *     <li>POST /guess?game=id&amp;word=guess plays a guess: {"guess": n, "correct": .., "pattern": code,
+ *     "message": .., "done": ..}</li>
+ *     <li>GET /hint?game=id suggests the next guess: {"hint": word}</li>
+ *     <li>GET /metrics reports the totals of {@link Metrics} by operation, when they are enabled: {"wordle":
+ *     {"calls": n, "nodes": .., "candidates": .., "pruned": {"grey": .., ..}, "p50": ns, "p99": ns, "max": ns},
+ *     ..}</li>
+ * </ul>
+ *
+ * Usage: WordleServer [port]
+ */
+public class WordleServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int LENGTH = 5;
+
+    // a game is dropped after 10 minutes without a request, checked every 30 seconds
+    public static final long IDLE_MILLIS = 10 * 60 * 1000;
+    private static final long SWEEP_MILLIS = 30 * 1000;
+
+    // how long stop() waits for the requests in progress
+    private static final int STOP_SECONDS = 1;
+
+    // disables Nagle's algorithm in the JDK HTTP server
+    private static final String NO_DELAY = "sun.net.httpserver.nodelay";
+
+    // the state of one game, its requests are handled one at a time.
+    private static class Session {
+        private final Wordle wordle;
+        private Constraint constraint;
+
+        // the node of the next guess in the decision tree, -1 once the player leaves it
+        private int node;
+
+        private Session(Wordle wordle) {
+            this.wordle = wordle;
+            this.constraint = new Constraint(LENGTH);
+            this.node = 0;
+        }
+    }
+
+    private final Lexicon lexicon;
+    private final DecisionTree tree;
+    private final SessionStore<Session> sessions;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Create a server.
+     * @param lexicon the lexicon, loaded and no longer modified.
+     * @param tree the decision tree for hints, built from the words of the lexicon.
+     * @param idleMillis how long a game can go without a request before it is dropped, in milliseconds.
+     */
+    public WordleServer(Lexicon lexicon, DecisionTree tree, long idleMillis) {
+        this.lexicon = lexicon;
+        this.tree = tree;
+        this.sessions = new SessionStore<>(idleMillis);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+        Lexicon lexicon = new Trie();
+        LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+
+        // the tree written by DecisionTree, or built now if there is none or the words changed
+        DecisionTree tree = DecisionTree.loadOrBuild(Paths.get(DecisionTree.DEFAULT_FILE), Alphabets.LEXICON_FULL);
+
+        WordleServer server = new WordleServer(lexicon, tree, IDLE_MILLIS);
+        server.start(port);
+        System.out.println("Listening on port " + server.getPort() + ".");
+    }
+
+    /**
+     * Start serving.
+     * @param port the port, 0 for any free port.
+     * @throws IOException if the server cannot listen on the port.
+     */
+    public void start(int port) throws IOException {
+        if (server != null)
+            throw new IllegalStateException("The server is already started.");
+
+        // send small responses right away instead of waiting for the client to acknowledge the headers, unless
+        // configured otherwise. This is read once, when the first server is created.
+        if (System.getProperty(NO_DELAY) == null)
+            System.setProperty(NO_DELAY, "true");
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/game", handler(this::newGame));
+        server.createContext("/guess", handler(this::guess));
+        server.createContext("/hint", handler(this::hint));
+        server.createContext("/metrics", handler(this::metrics));
+
+        executor = TaskExecutors.newPerTaskExecutor();
+        server.setExecutor(executor);
+        server.start();
+
+        sweeper = Executors.newSingleThreadScheduledExecutor();
+        sweeper.scheduleWithFixedDelay(sessions::expire, SWEEP_MILLIS, SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        if (server == null)
+            throw new IllegalStateException("The server is not started.");
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return the number of games in progress.
+     */
+    public int getGames() {
+        return sessions.size();
+    }
+
+    /**
+     * Stop serving, waiting a second or so for the requests in progress to be answered.
+     */
+    public void stop() {
+        if (server == null)
+            return;
+
+        // stop accepting requests, then let the handlers finish
+        server.stop(STOP_SECONDS);
+        sweeper.shutdown();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    // #region Endpoints
+
+    // a request that failed, answered with its status and message.
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // an endpoint, answering the JSON of a request.
+    private interface Endpoint {
+        String handle(String method, Map<String, String> parameters);
+    }
+
+    private static HttpHandler handler(Endpoint endpoint) {
+        return exchange -> {
+            int status = 200;
+            String body;
+            try {
+                body = endpoint.handle(exchange.getRequestMethod(), parameters(exchange));
+            } catch (RequestException e) {
+                status = e.status;
+                body = "{\"error\": " + quote(e.getMessage()) + "}";
+            } catch (RuntimeException e) {
+                status = 500;
+                body = "{\"error\": " + quote(String.valueOf(e)) + "}";
+            }
+            send(exchange, status, body);
+        };
+    }
+
+    private String newGame(String method, Map<String, String> parameters) {
+        require("POST", method);
+
+        Wordle wordle = new Wordle(lexicon.sample(LENGTH, ThreadLocalRandom.current()));
+        wordle.setLexicon(lexicon);
+        String id = sessions.add(new Session(wordle));
+        return "{\"game\": " + quote(id) + ", \"length\": " + LENGTH + "}";
+    }
+
+    private String guess(String method, Map<String, String> parameters) {
+        require("POST", method);
+        String id = parameter(parameters, "game");
+        String word = parameter(parameters, "word");
+        Session session = session(id);
+
+        Wordle.Result result;
+        synchronized (session) {
+            result = session.wordle.guess(word);
+            if (result.getConstraint() != null) {
+                session.constraint = result.getConstraint();
+                session.node = session.node >= 0 && word.equals(tree.getGuess(session.node))
+                        ? tree.next(session.node, result.getPattern()) : -1;
+            }
+        }
+
+        boolean done = result.isCorrect() || result.getGuessNumber() >= Wordle.MAX_GUESSES;
+        if (done)
+            sessions.remove(id);
+
+        return "{\"guess\": " + result.getGuessNumber() + ", \"correct\": " + result.isCorrect() + ", \"pattern\": "
+                + result.getPattern() + ", \"message\": " + quote(result.getMessage()) + ", \"done\": " + done + "}";
+    }
+
+    private String hint(String method, Map<String, String> parameters) {
+        require("GET", method);
+        Session session = session(parameter(parameters, "game"));
+
+        // follow the tree while the player does, otherwise suggest a remaining candidate
+        String hint;
+        synchronized (session) {
+            if (session.node >= 0)
+                hint = tree.getGuess(session.node);
+            else
+                hint = lexicon.wordleStream(session.constraint).findFirst().orElse(null);
+        }
+        return "{\"hint\": " + (hint == null ? "null" : quote(hint)) + "}";
+    }
+
+    private String metrics(String method, Map<String, String> parameters) {
+        require("GET", method);
+        if (!Metrics.ENABLED)
+            throw new RequestException(404, "Metrics are disabled, start the server with -D" + Metrics.PROPERTY
+                    + "=true.");
+
+        Metrics.Snapshot snapshot = Metrics.snapshot();
+        StringBuilder json = new StringBuilder("{");
+        for (Metrics.Operation operation : Metrics.Operation.values()) {
+            if (json.length() > 1)
+                json.append(", ");
+            json.append(quote(operation.name().toLowerCase())).append(": {\"calls\": ")
+                    .append(snapshot.getCalls(operation)).append(", \"nodes\": ")
+                    .append(snapshot.getNodesVisited(operation)).append(", \"candidates\": ")
+                    .append(snapshot.getCandidates(operation)).append(", \"pruned\": {");
+            for (Metrics.Prune prune : Metrics.Prune.values()) {
+                json.append(prune.ordinal() > 0 ? ", " : "").append(quote(prune.name().toLowerCase())).append(": ")
+                        .append(snapshot.getPruned(operation, prune));
+            }
+
+            LatencyHistogram latency = snapshot.getLatency(operation);
+            json.append("}, \"p50\": ").append(latency.getValueAt(50)).append(", \"p99\": ")
+                    .append(latency.getValueAt(99)).append(", \"max\": ").append(latency.getMax()).append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(id);
+        if (session == null)
+            throw new RequestException(404, "No game " + id + ", it may have ended or expired.");
+        return session;
+    }
+
+    private static void require(String expected, String method) {
+        if (!expected.equals(method))
+            throw new RequestException(405, "Use " + expected + ".");
+    }
+
+    private static String parameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null)
+            throw new RequestException(400, "Missing parameter \"" + name + "\".");
+        return value;
+    }
+
+    // #endregion
+
+    // #region HTTP
+
+    // the parameters of the query string.
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null)
+            return parameters;
+
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0)
+                parameters.put(decode(pair.substring(0, equals)), decode(pair.substring(equals + 1)));
+        }
+        return parameters;
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String s) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < ' ')
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // #endregion
+}
@@ -0,0 +1,178 @@
+package ca.qc.johnabbott.cs4p6;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Headless batch mode: play a full game for every answer, or a random sample of them, and report how well and
+ * how fast a solver plays.
+ *
+ * Usage: WordleSimulator [advisor|candidates|tree] [sample size]
+ *
+ * With -Dcs4p6.metrics=true, the {@link Metrics} of the games are printed after the report.
+ */
+public class WordleSimulator {
+
+    public static final int LENGTH = 5;
+
+    /**
+     * Summary of a batch of games.
+     */
+    public static class Report {
+        private final int[] histogram;
+        private final int failures;
+        private final int games;
+        private final long elapsedNanos;
+        private final long[] latencies;
+
+        private Report(int[] histogram, int failures, long elapsedNanos, long[] latencies) {
+            this.histogram = histogram;
+            this.failures = failures;
+            this.games = latencies.length;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+            Arrays.sort(latencies);
+        }
+
+        /**
+         * @return the number of games solved in each number of guesses, index 0 is unused.
+         */
+        public int[] getHistogram() {
+            return histogram.clone();
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public double getFailureRate() {
+            return games == 0 ? 0 : (double) failures / games;
+        }
+
+        public double getGamesPerSecond() {
+            return games / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100.
+         * @return the game latency at the percentile in milliseconds.
+         */
+        public double getLatencyMillis(double percentile) {
+            if (games == 0)
+                return 0;
+            int index = (int) Math.ceil(percentile / 100 * games) - 1;
+            return latencies[Math.max(0, Math.min(index, games - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            for (int guesses = 1; guesses <= Wordle.MAX_GUESSES; guesses++)
+                report.append(String.format("%d guesses: %6d\n", guesses, histogram[guesses]));
+            report.append(String.format("failed:    %6d (%.2f%%)\n", failures, getFailureRate() * 100));
+            report.append(String.format("%d games, %.1f games/s, p50 %.2f ms, p99 %.2f ms", games, getGamesPerSecond(),
+                    getLatencyMillis(50), getLatencyMillis(99)));
+            return report.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String strategy = args.length > 0 ? args[0] : "advisor";
+        int sample = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+
+        Lexicon lexicon = new Trie();
+        LexiconLoader.load(lexicon, Alphabets.LEXICON_FULL);
+
+        List<String> answers = new ArrayList<>(lexicon.wordle(LENGTH, Set.of(), Map.of(), List.of()));
+        if (sample < answers.size()) {
+            Collections.shuffle(answers, new Random());
+            answers = answers.subList(0, sample);
+        }
+
+        Supplier<Solver> solvers;
+        switch (strategy) {
+            case "advisor":
+                solvers = AdvisorSolver.factory(FeedbackMatrix.build(lexicon));
+                break;
+            case "candidates":
+                solvers = CandidateSolver.factory(lexicon, LENGTH);
+                break;
+            // the tree written by DecisionTree, or built now if there is none or the words changed
+            case "tree":
+                solvers = TreeSolver.factory(
+                        DecisionTree.loadOrBuild(Paths.get(DecisionTree.DEFAULT_FILE), Alphabets.LEXICON_FULL));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown solver \"" + strategy + "\".");
+        }
+
+        // only the games count, not building the solver
+        Metrics.reset();
+        System.out.println(simulate(answers, lexicon, solvers));
+        if (Metrics.ENABLED)
+            System.out.println(Metrics.snapshot());
+    }
+
+    /**
+     * Play one game per answer, each game running as its own task.
+     * @param answers the answers.
+     * @param lexicon the lexicon validating guesses, shared by every game.
+     * @param solvers a supplier of solvers, one per game.
+     * @return the report.
+     */
+    public static Report simulate(List<String> answers, Lexicon lexicon, Supplier<Solver> solvers) {
+        ExecutorService executor = TaskExecutors.newPerTaskExecutor();
+        try {
+            long start = System.nanoTime();
+            List<Future<long[]>> games = new ArrayList<>();
+            for (String answer : answers)
+                games.add(executor.submit(() -> play(answer, lexicon, solvers.get())));
+
+            int[] histogram = new int[Wordle.MAX_GUESSES + 1];
+            int failures = 0;
+            long[] latencies = new long[answers.size()];
+            for (int i = 0; i < games.size(); i++) {
+                long[] game = games.get(i).get();
+                if (game[0] > 0)
+                    histogram[(int) game[0]]++;
+                else
+                    failures++;
+                latencies[i] = game[1];
+            }
+
+            return new Report(histogram, failures, System.nanoTime() - start, latencies);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // play a game, returning the number of guesses to solve it (0 if it failed) and its latency in nanoseconds.
+    private static long[] play(String answer, Lexicon lexicon, Solver solver) {
+        long start = System.nanoTime();
+
+        Wordle wordle = new Wordle(answer);
+        wordle.setLexicon(lexicon);
+
+        int solvedIn = 0;
+        for (int i = 0; i < Wordle.MAX_GUESSES && solvedIn == 0; i++) {
+            String guess = solver.nextGuess();
+            Wordle.Result result = wordle.guess(guess);
+            if (result.isCorrect())
+                solvedIn = result.getGuessNumber();
+            else
+                solver.update(guess, result);
+        }
+
+        return new long[] { solvedIn, System.nanoTime() - start };
+    }
+}